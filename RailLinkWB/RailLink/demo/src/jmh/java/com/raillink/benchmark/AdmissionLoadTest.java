@@ -0,0 +1,114 @@
+package com.raillink.benchmark;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import com.raillink.service.AdmissionControl;
+// In-process flash-crowd simulation for AdmissionControl. The "database" is a semaphore of
+// pool-size permits held for a fixed service time, so it completes at most
+// pool / service-time requests per second. Clients arrive faster than that, first without
+// admission control and then with it, and the run prints the end-to-end latency of
+// requests that were served next to how many were queued or turned away. In both modes a
+// request's latency runs from its first attempt, so queue waits and retries are included.
+// Turned-away clients wait out the Retry-After header they would be sent, in whole seconds.
+//
+//   mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=com.raillink.benchmark.AdmissionLoadTest \
+//       -Djmh.args="2000 20 10 20"
+//
+// Arguments: clients, pool size, service time in ms, duration in seconds. Admission runs at
+// 90% of the simulated capacity, with one token per second per client (burst 5).
+public final class AdmissionLoadTest {
+    private static final int SCHEDULES = 8;
+    private AdmissionLoadTest() {}
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int pool = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int serviceMillis = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+        double capacity = pool * 1000.0 / serviceMillis;
+        System.out.printf("clients=%d simulated capacity=%.0f req/s%n", clients, capacity);
+        System.out.println("-- without admission control");
+        run(clients, pool, serviceMillis, seconds, null);
+        System.out.println("-- with admission control");
+        AdmissionControl admission = new AdmissionControl(capacity * 0.9, pool, 1, 5, 2_000, 15_000);
+        Thread dispatcher = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                admission.dispatch();
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+            }
+        }, "admission-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        run(clients, pool, serviceMillis, seconds, admission);
+        dispatcher.interrupt();
+    }
+    private static void run(int clients, int pool, int serviceMillis, int seconds, AdmissionControl admission) throws Exception {
+        Semaphore database = new Semaphore(pool, true);
+        AtomicLong served = new AtomicLong();
+        AtomicLong queued = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        List<long[]> latencies = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService threads = Executors.newFixedThreadPool(clients);
+        for (int c = 0; c < clients; c++) {
+            long[] samples = new long[1 << 12];
+            latencies.add(samples);
+            String user = "client-" + c;
+            threads.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int recorded = 0;
+                String ticket = null;
+                String schedule = Integer.toString(random.nextInt(SCHEDULES));
+                long started = System.nanoTime();
+                while (System.nanoTime() < deadline) {
+                    if (admission != null) {
+                        AdmissionControl.Decision decision = admission.admit(user, schedule, ticket);
+                        if (decision.outcome() != AdmissionControl.Outcome.ADMITTED) {
+                            if (decision.outcome() == AdmissionControl.Outcome.QUEUED) {
+                                if (ticket == null) {
+                                    queued.incrementAndGet();
+                                }
+                                ticket = decision.ticket();
+                            } else {
+                                rejected.incrementAndGet();
+                                ticket = null;
+                            }
+                            LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(decision.retryAfterSeconds()));
+                            continue;
+                        }
+                        ticket = null;
+                    }
+                    database.acquireUninterruptibly();
+                    try {
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(serviceMillis));
+                    } finally {
+                        database.release();
+                    }
+                    served.incrementAndGet();
+                    samples[recorded++ & (samples.length - 1)] = System.nanoTime() - started;
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(random.nextInt(50, 250)));
+                    schedule = Integer.toString(random.nextInt(SCHEDULES));
+                    started = System.nanoTime();
+                }
+            });
+        }
+        threads.shutdown();
+        threads.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+        long[] all = latencies.stream().flatMapToLong(Arrays::stream).filter(v -> v > 0).sorted().toArray();
+        System.out.printf("served=%d (%.1f req/s) queued=%d rejected=%d%n", served.get(), served.get() / (double) seconds,
+                queued.get(), rejected.get());
+        if (all.length > 0) {
+            System.out.printf("served latency p50=%.1f ms p99=%.1f ms max=%.1f ms%n",
+                    percentile(all, 0.50), percentile(all, 0.99), all[all.length - 1] / 1e6);
+        }
+    }
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))] / 1e6;
+    }
+}
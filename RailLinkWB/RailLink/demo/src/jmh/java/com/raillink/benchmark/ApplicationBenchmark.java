@@ -0,0 +1,198 @@
+package com.raillink.benchmark;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import com.raillink.RailLinkApplication;
+import com.raillink.dto.BookingPage;
+import com.raillink.model.Booking;
+import com.raillink.model.Role;
+import com.raillink.model.Route;
+import com.raillink.model.Schedule;
+import com.raillink.model.Station;
+import com.raillink.model.Train;
+import com.raillink.model.User;
+import com.raillink.repository.BookingQueryRepository;
+import com.raillink.repository.RouteRepository;
+import com.raillink.repository.TrainRepository;
+import com.raillink.repository.UserRepository;
+import com.raillink.service.BookingQueryService;
+import com.raillink.service.BookingService;
+import com.raillink.service.DashboardStatisticsService;
+import com.raillink.service.RouteStopService;
+import com.raillink.service.ScheduleGenerationService;
+import com.raillink.service.ScheduleService;
+import com.raillink.service.SeatInventoryService;
+import com.raillink.service.StationCatalog;
+import com.raillink.service.StationPairIndex;
+import com.raillink.service.StationService;
+import com.raillink.service.TrainService;
+import com.raillink.service.UserService;
+// Service-level reads and writes against the full Spring context on an embedded H2 database
+// (profile "benchmark"). Seeding happens once per fork; numbers cover JPA and the caches in
+// front of it, not MySQL itself.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApplicationBenchmark {
+    private static final int STATIONS = 500;
+    private static final int USERS = 200;
+    private static final int ROUTES = 40;
+    private static final int SCHEDULE_DAYS = 14;
+    private static final int BOOKINGS = 5_000;
+    private static final int SEATS_PER_CLASS = 400;
+    private ConfigurableApplicationContext context;
+    private StationService stationService;
+    private StationCatalog stationCatalog;
+    private DashboardStatisticsService dashboardStatisticsService;
+    private BookingQueryService bookingQueryService;
+    private SeatInventoryService seatInventoryService;
+    private BookingService bookingService;
+    private ScheduleGenerationService scheduleGenerationService;
+    private UserRepository userRepository;
+    private TrainRepository trainRepository;
+    private RouteRepository routeRepository;
+    private BookingQueryRepository bookingQueryRepository;
+    private User passenger;
+    private Schedule schedule;
+    private Train train;
+    private Route route;
+    private int next;
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(RailLinkApplication.class)
+                .run("--spring.profiles.active=benchmark");
+        stationService = context.getBean(StationService.class);
+        stationCatalog = context.getBean(StationCatalog.class);
+        dashboardStatisticsService = context.getBean(DashboardStatisticsService.class);
+        bookingQueryService = context.getBean(BookingQueryService.class);
+        seatInventoryService = context.getBean(SeatInventoryService.class);
+        bookingService = context.getBean(BookingService.class);
+        scheduleGenerationService = context.getBean(ScheduleGenerationService.class);
+        userRepository = context.getBean(UserRepository.class);
+        trainRepository = context.getBean(TrainRepository.class);
+        routeRepository = context.getBean(RouteRepository.class);
+        bookingQueryRepository = context.getBean(BookingQueryRepository.class);
+        seed();
+    }
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+    private void seed() {
+        for (int i = 1; i <= STATIONS; i++) {
+            Station station = new Station("Station " + i, "Zone " + (i % 12));
+            station.setFacilities(i % 3 == 0 ? "Wheelchair Access, Parking, WiFi" : "Restrooms, Waiting Room");
+            stationService.saveStation(station);
+        }
+        UserService userService = context.getBean(UserService.class);
+        for (int i = 1; i <= USERS; i++) {
+            userService.registerUser("user" + i, "user" + i + "@example.com", "password", Role.ROLE_PASSENGER);
+        }
+        passenger = userService.findAllUsers().get(0);
+        train = new Train();
+        train.setName("Benchmark Express");
+        train.setClasses(Map.of("First", SEATS_PER_CLASS, "Second", SEATS_PER_CLASS));
+        context.getBean(TrainService.class).saveTrain(train);
+        RouteStopService routeStopService = context.getBean(RouteStopService.class);
+        long[][] paths = BenchmarkTimetables.routes(ROUTES, STATIONS, 8, 42);
+        LocalDate firstDay = LocalDate.now();
+        for (long[] path : paths) {
+            route = routeStopService.saveRoute(new Route(), path);
+            scheduleGenerationService.generate(new ScheduleGenerationService.DailyTemplate(train, route,
+                    "Daily " + route.getId(), "ON_TIME", 0, null, LocalTime.of(7, 0), LocalTime.of(11, 30)),
+                    firstDay, firstDay.plusDays(SCHEDULE_DAYS - 1));
+        }
+        context.getBean(StationPairIndex.class).reload();
+        seatInventoryService.rebuild();
+        List<Schedule> schedules = context.getBean(ScheduleService.class).findAllSchedules();
+        schedule = schedules.get(0);
+        List<User> users = userService.findAllUsers();
+        for (int i = 0; i < BOOKINGS; i++) {
+            Schedule target = schedules.get(1 + i % (schedules.size() - 1));
+            seatInventoryService.book(users.get(i % users.size()), target, null, i % 2 == 0 ? "First" : "Second");
+        }
+    }
+    @Benchmark
+    public List<Station> stationCatalogAll() {
+        return stationService.findAllStations();
+    }
+    @Benchmark
+    public Optional<Station> stationById() {
+        return stationService.findStationById((long) (1 + Math.floorMod(next++, STATIONS)));
+    }
+    @Benchmark
+    public Optional<Station> stationByName() {
+        return stationService.findStationByName("Station " + (1 + Math.floorMod(next++, STATIONS)));
+    }
+    @Benchmark
+    public int stationCatalogSize() {
+        return stationCatalog.size();
+    }
+    // The dashboard's cache-miss cost: every count the counts record is built from.
+    @Benchmark
+    public void dashboardCountsUncached(Blackhole blackhole) {
+        blackhole.consume(userRepository.count());
+        blackhole.consume(trainRepository.count());
+        blackhole.consume(stationCatalog.size());
+        blackhole.consume(routeRepository.count());
+        blackhole.consume(bookingQueryRepository.count());
+    }
+    @Benchmark
+    public DashboardStatisticsService.Counts dashboardCounts() {
+        return dashboardStatisticsService.getCounts();
+    }
+    @Benchmark
+    public List<Booking> dashboardRecentBookings() {
+        return dashboardStatisticsService.findRecentBookings(10);
+    }
+    @Benchmark
+    public BookingPage bookingListFirstPage() {
+        return bookingQueryService.findPage(null, BookingQueryService.DEFAULT_PAGE_SIZE);
+    }
+    @Benchmark
+    public BookingPage bookingListByPassenger() {
+        return bookingQueryService.findPageByPassenger("user1", null, BookingQueryService.DEFAULT_PAGE_SIZE);
+    }
+    // Seat allocation alone: claim the lowest free seat and give it back.
+    @Benchmark
+    public String seatReserveAndRelease() {
+        SeatInventoryService.Seat seat = seatInventoryService.reserve(schedule.getId(), "Second", null);
+        seatInventoryService.release(schedule.getId(), seat.ticketClass(), seat.seatNumber());
+        return seat.seatNumber();
+    }
+    // The full booking write as the admin controller performs it, undone so the coach never fills.
+    @Benchmark
+    public Long createAndDeleteBooking() {
+        Booking booking = seatInventoryService.book(passenger, schedule, null, "First");
+        bookingService.deleteBooking(booking.getId());
+        return booking.getId();
+    }
+    @Benchmark
+    @Measurement(iterations = 3, time = 5)
+    public int generateThirtyDailySchedules() {
+        LocalDate start = LocalDate.now().plusYears(1).plusDays(next++ * 31L);
+        return scheduleGenerationService.generate(new ScheduleGenerationService.DailyTemplate(train, route,
+                "Generated", "ON_TIME", 0, null, LocalTime.of(6, 0), LocalTime.of(9, 0)), start, start.plusDays(29));
+    }
+}
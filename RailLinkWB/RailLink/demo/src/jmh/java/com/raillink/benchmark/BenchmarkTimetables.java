@@ -0,0 +1,42 @@
+package com.raillink.benchmark;
+import java.time.LocalDateTime;
+import java.util.Random;
+import com.raillink.service.ConnectionTimetable;
+// Synthetic network shared by the in-memory benchmarks: a fixed seed keeps runs comparable.
+final class BenchmarkTimetables {
+    static final LocalDateTime START = LocalDateTime.of(2025, 1, 6, 0, 0);
+    private BenchmarkTimetables() {}
+    static long[][] routes(int routeCount, int stationCount, int stopsPerRoute, long seed) {
+        Random random = new Random(seed);
+        long[][] routes = new long[routeCount][];
+        for (int r = 0; r < routeCount; r++) {
+            long[] stops = new long[stopsPerRoute];
+            long previous = -1;
+            for (int i = 0; i < stopsPerRoute; i++) {
+                long station;
+                do {
+                    station = 1 + random.nextInt(stationCount);
+                } while (station == previous);
+                stops[i] = station;
+                previous = station;
+            }
+            routes[r] = stops;
+        }
+        return routes;
+    }
+    // One trip per route every tripIntervalMinutes for the given number of days.
+    static ConnectionTimetable timetable(long[][] routes, int days, int tripIntervalMinutes, long seed) {
+        Random random = new Random(seed);
+        ConnectionTimetable.Builder builder = ConnectionTimetable.builder(1);
+        long scheduleId = 1;
+        for (long[] stops : routes) {
+            int offset = random.nextInt(tripIntervalMinutes);
+            int runMinutes = 20 * (stops.length - 1);
+            for (int minute = offset; minute < days * 24 * 60; minute += tripIntervalMinutes) {
+                LocalDateTime departure = START.plusMinutes(minute);
+                builder.addTrip(scheduleId++, stops, departure, departure.plusMinutes(runMinutes));
+            }
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,103 @@
+package com.raillink.benchmark;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import com.raillink.RailLinkApplication;
+import com.raillink.model.Booking;
+import com.raillink.model.Role;
+import com.raillink.model.Route;
+import com.raillink.model.Schedule;
+import com.raillink.model.Station;
+import com.raillink.model.Train;
+import com.raillink.model.User;
+import com.raillink.service.BookingPipeline;
+import com.raillink.service.RouteStopService;
+import com.raillink.service.ScheduleGenerationService;
+import com.raillink.service.ScheduleService;
+import com.raillink.service.SeatInventoryService;
+import com.raillink.service.StationPairIndex;
+import com.raillink.service.StationService;
+import com.raillink.service.TrainService;
+import com.raillink.service.UserService;
+// Many threads booking the same schedule: one transaction per booking through
+// SeatInventoryService.book, against the per-schedule pipeline that commits in batches. Each
+// seat is handed back after booking so the coach never fills; the rows stay.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 3)
+@Threads(32)
+@Fork(1)
+public class BookingPipelineBenchmark {
+    private static final int USERS = 64;
+    private ConfigurableApplicationContext context;
+    private SeatInventoryService seatInventoryService;
+    private BookingPipeline bookingPipeline;
+    private List<User> users;
+    private Schedule hot;
+    private final AtomicInteger next = new AtomicInteger();
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(RailLinkApplication.class)
+                .run("--spring.profiles.active=benchmark", "--raillink.admission.enabled=false");
+        seatInventoryService = context.getBean(SeatInventoryService.class);
+        bookingPipeline = context.getBean(BookingPipeline.class);
+        StationService stationService = context.getBean(StationService.class);
+        Station origin = stationService.saveStation(new Station("Hot Origin", "Zone 1"));
+        Station destination = stationService.saveStation(new Station("Hot Destination", "Zone 2"));
+        UserService userService = context.getBean(UserService.class);
+        for (int i = 1; i <= USERS; i++) {
+            userService.registerUser("rush" + i, "rush" + i + "@example.com", "password", Role.ROLE_PASSENGER);
+        }
+        users = userService.findAllUsers();
+        Train train = new Train();
+        train.setName("Holiday Special");
+        train.setClasses(Map.of("First", 200, "Second", 800));
+        context.getBean(TrainService.class).saveTrain(train);
+        long[] path = {origin.getId(), destination.getId()};
+        Route route = context.getBean(RouteStopService.class).saveRoute(new Route(), path);
+        context.getBean(ScheduleGenerationService.class).generate(new ScheduleGenerationService.DailyTemplate(train, route,
+                "Holiday", "ON_TIME", 0, null, LocalTime.of(8, 0), LocalTime.of(10, 0)), LocalDate.now(), LocalDate.now());
+        context.getBean(StationPairIndex.class).reload();
+        seatInventoryService.rebuild();
+        hot = context.getBean(ScheduleService.class).findAllSchedules().get(0);
+    }
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+    @Benchmark
+    public Long transactionPerBooking() {
+        User user = users.get(Math.floorMod(next.incrementAndGet(), users.size()));
+        Booking booking = seatInventoryService.book(user, hot, null, "Second");
+        seatInventoryService.release(booking);
+        return booking.getId();
+    }
+    @Benchmark
+    public long pipeline() {
+        User user = users.get(Math.floorMod(next.incrementAndGet(), users.size()));
+        BookingPipeline.BookingResult result = bookingPipeline.submit(
+                new BookingPipeline.BookingRequest(user.getId(), hot.getId(), "Second", null)).join();
+        seatInventoryService.release(hot.getId(), "Second", result.seatNumber());
+        return result.bookingId();
+    }
+}
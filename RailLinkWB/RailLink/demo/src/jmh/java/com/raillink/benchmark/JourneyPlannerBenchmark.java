@@ -0,0 +1,62 @@
+package com.raillink.benchmark;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.raillink.dto.Journey;
+import com.raillink.service.ConnectionScanPlanner;
+import com.raillink.service.ConnectionTimetable;
+import com.raillink.service.JourneyPlannerService;
+// Connection scan over a synthetic week of trips, with and without transfers.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JourneyPlannerBenchmark {
+    @Param({"60", "300"})
+    public int routes;
+    private ConnectionTimetable timetable;
+    private long[][] queries;
+    private int next;
+    @Setup(Level.Trial)
+    public void setUp() {
+        long[][] network = BenchmarkTimetables.routes(routes, 200, 8, 42);
+        timetable = BenchmarkTimetables.timetable(network, 7, 120, 42);
+        // Origin and destination taken from different routes so most queries need a change.
+        queries = new long[64][];
+        for (int i = 0; i < queries.length; i++) {
+            long[] from = network[i % network.length];
+            long[] to = network[(i * 7 + 3) % network.length];
+            queries[i] = new long[] {from[0], to[to.length - 1]};
+        }
+    }
+    @Benchmark
+    public List<Journey> planWithTransfers() {
+        long[] query = queries[next++ & (queries.length - 1)];
+        return ConnectionScanPlanner.plan(timetable, query[0], query[1],
+                ConnectionTimetable.toSeconds(BenchmarkTimetables.START.plusHours(30)),
+                JourneyPlannerService.DEFAULT_MAX_TRANSFERS, JourneyPlannerService.DEFAULT_MIN_TRANSFER_MINUTES * 60L);
+    }
+    @Benchmark
+    public List<Journey> planDirectOnly() {
+        long[] query = queries[next++ & (queries.length - 1)];
+        return ConnectionScanPlanner.plan(timetable, query[0], query[1],
+                ConnectionTimetable.toSeconds(BenchmarkTimetables.START.plusHours(30)), 0, 0);
+    }
+    @Benchmark
+    public ConnectionTimetable buildTimetable() {
+        return BenchmarkTimetables.timetable(BenchmarkTimetables.routes(routes, 200, 8, 42), 7, 120, 42);
+    }
+}
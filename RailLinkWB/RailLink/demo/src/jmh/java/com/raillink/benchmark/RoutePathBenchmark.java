@@ -0,0 +1,51 @@
+package com.raillink.benchmark;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.raillink.service.RouteStopService;
+// Conversions between the legacy comma-separated Route.path and stop arrays.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoutePathBenchmark {
+    @Param({"8", "40"})
+    public int stops;
+    private String path;
+    private long[] stopArray;
+    private List<Long> stopList;
+    @Setup
+    public void setUp() {
+        stopArray = BenchmarkTimetables.routes(1, 5000, stops, 7)[0];
+        stopList = new ArrayList<>(stops);
+        for (long stop : stopArray) {
+            stopList.add(stop);
+        }
+        path = RouteStopService.toPath(stopArray);
+    }
+    @Benchmark
+    public long[] parsePath() {
+        return RouteStopService.parsePath(path);
+    }
+    @Benchmark
+    public String toPath() {
+        return RouteStopService.toPath(stopArray);
+    }
+    @Benchmark
+    public long[] fromFormList() {
+        return RouteStopService.toArray(stopList);
+    }
+}
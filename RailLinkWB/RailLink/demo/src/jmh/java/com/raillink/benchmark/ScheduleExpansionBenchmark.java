@@ -0,0 +1,44 @@
+package com.raillink.benchmark;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.raillink.service.ScheduleGenerationService;
+// Expanding a daily template into dated instances; the insert itself is covered by ApplicationBenchmark.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScheduleExpansionBenchmark {
+    @Param({"31", "365"})
+    public int days;
+    private ScheduleGenerationService service;
+    private ScheduleGenerationService.DailyTemplate overnight;
+    private LocalDate start;
+    private LocalDate end;
+    @Setup
+    public void setUp() {
+        service = new ScheduleGenerationService();
+        overnight = new ScheduleGenerationService.DailyTemplate(null, null, "Night Mail", "ON_TIME", 0, null,
+                LocalTime.of(22, 30), LocalTime.of(6, 15));
+        start = LocalDate.of(2025, 1, 1);
+        end = start.plusDays(days - 1);
+    }
+    @Benchmark
+    public List<ScheduleGenerationService.Instance> expand() {
+        return service.expand(overnight, start, end);
+    }
+}
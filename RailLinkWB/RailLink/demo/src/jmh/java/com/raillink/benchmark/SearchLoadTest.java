@@ -0,0 +1,89 @@
+package com.raillink.benchmark;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+// Closed-loop HTTP load against a running instance, used to compare the default platform-thread
+// mode with the virtual-threads profile. Every client repeatedly calls the public train search
+// and journey endpoints for random station pairs.
+//
+//   mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=com.raillink.benchmark.SearchLoadTest \
+//       -Djmh.args="http://localhost:8080 400 60 500"
+//
+// Arguments: base URL, concurrent clients, duration in seconds, highest station id.
+public final class SearchLoadTest {
+    private SearchLoadTest() {}
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+        int stations = args.length > 3 ? Integer.parseInt(args[3]) : 500;
+        HttpClient http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors())))
+                .build();
+        AtomicLong ok = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        List<long[]> latencies = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        for (int c = 0; c < clients; c++) {
+            long[] samples = new long[1 << 16];
+            latencies.add(samples);
+            pool.execute(() -> {
+                int recorded = 0;
+                while (System.nanoTime() < deadline) {
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + nextPath(stations)))
+                            .timeout(Duration.ofSeconds(30))
+                            .GET()
+                            .build();
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() == 200) {
+                            ok.incrementAndGet();
+                        } else {
+                            failed.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                    }
+                    samples[recorded++ & (samples.length - 1)] = System.nanoTime() - start;
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+        report(ok.get(), failed.get(), seconds, latencies);
+    }
+    private static String nextPath(int stations) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = 1 + random.nextInt(stations);
+        int to = 1 + random.nextInt(stations);
+        LocalDate date = LocalDate.now().plusDays(random.nextInt(7));
+        return random.nextInt(4) == 0
+                ? "/api/trains/journeys?from=" + from + "&to=" + to + "&departAfter=" + date.atTime(6, 0)
+                : "/api/trains/search?from=" + from + "&to=" + to + "&date=" + date;
+    }
+    private static void report(long ok, long failed, int seconds, List<long[]> latencies) {
+        long[] all = latencies.stream().flatMapToLong(Arrays::stream).filter(v -> v > 0).sorted().toArray();
+        System.out.printf("requests ok=%d failed=%d throughput=%.1f req/s%n", ok, failed, (ok + failed) / (double) seconds);
+        if (all.length > 0) {
+            System.out.printf("latency p50=%.1f ms p95=%.1f ms p99=%.1f ms max=%.1f ms%n",
+                    percentile(all, 0.50), percentile(all, 0.95), percentile(all, 0.99), all[all.length - 1] / 1e6);
+        }
+    }
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))] / 1e6;
+    }
+}
@@ -0,0 +1,48 @@
+package com.raillink.benchmark;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import com.raillink.service.SeatBitmap;
+// Seat claims on one coach shared by all benchmark threads, the contended case during a sale.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SeatBitmapBenchmark {
+    @Param({"72", "1200"})
+    public int capacity;
+    private SeatBitmap seats;
+    @Setup
+    public void setUp() {
+        seats = new SeatBitmap(capacity);
+        // Half full, so takeAny has to skip occupied words.
+        for (int i = 0; i < capacity; i += 2) {
+            seats.tryTake(i);
+        }
+    }
+    @Benchmark
+    public int takeAnyAndRelease() {
+        int seat = seats.takeAny();
+        if (seat >= 0) {
+            seats.release(seat);
+        }
+        return seat;
+    }
+    @Benchmark
+    @Threads(4)
+    public int takeAnyAndReleaseContended() {
+        return takeAnyAndRelease();
+    }
+}
@@ -0,0 +1,98 @@
+package com.raillink.benchmark;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import com.raillink.service.ConnectionScanPlanner;
+import com.raillink.service.ConnectionTimetable;
+import com.raillink.service.JourneyPlannerService;
+// In-process comparison of the two request thread models, for when SearchLoadTest cannot be
+// pointed at a running instance. Each request plans a journey on a synthetic timetable and then
+// holds one of pool-size "connections" (a fair semaphore) for a fixed query time. Requests run
+// first on a fixed pool of 200 platform threads (Tomcat's default maximum) and then on one
+// virtual thread each; a closed loop of clients keeps the same number in flight in both runs.
+// Needs Java 21 for the second run.
+//
+//   mvn -Pjava21,benchmark test-compile exec:exec -Dbenchmark.main=com.raillink.benchmark.ThreadModelLoadTest \
+//       -Djmh.args="1000 10 5 20"
+//
+// Arguments: clients, connection pool size, query time in ms, duration in seconds per run.
+public final class ThreadModelLoadTest {
+    private static final int PLATFORM_THREADS = 200;
+    private ThreadModelLoadTest() {}
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int pool = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int queryMillis = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+        long[][] network = BenchmarkTimetables.routes(60, 200, 8, 42);
+        ConnectionTimetable timetable = BenchmarkTimetables.timetable(network, 7, 120, 42);
+        System.out.printf("clients=%d pool=%d query=%d ms (database capacity %.0f req/s)%n",
+                clients, pool, queryMillis, pool * 1000.0 / queryMillis);
+        System.out.println("-- platform threads (" + PLATFORM_THREADS + ")");
+        run(Executors.newFixedThreadPool(PLATFORM_THREADS), clients, pool, queryMillis, seconds, network, timetable);
+        System.out.println("-- virtual threads");
+        if (Runtime.version().feature() < 21) {
+            System.out.println("skipped: needs Java 21");
+            return;
+        }
+        ExecutorService virtual = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        run(virtual, clients, pool, queryMillis, seconds, network, timetable);
+    }
+    private static void run(ExecutorService server, int clients, int pool, int queryMillis, int seconds,
+                            long[][] network, ConnectionTimetable timetable) throws Exception {
+        Semaphore database = new Semaphore(pool, true);
+        AtomicLong served = new AtomicLong();
+        List<long[]> latencies = new ArrayList<>();
+        long departAfter = ConnectionTimetable.toSeconds(BenchmarkTimetables.START.plusHours(30));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService clientThreads = Executors.newFixedThreadPool(clients);
+        for (int c = 0; c < clients; c++) {
+            long[] samples = new long[1 << 12];
+            latencies.add(samples);
+            clientThreads.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int recorded = 0;
+                while (System.nanoTime() < deadline) {
+                    long[] from = network[random.nextInt(network.length)];
+                    long[] to = network[random.nextInt(network.length)];
+                    long start = System.nanoTime();
+                    try {
+                        server.submit(() -> {
+                            ConnectionScanPlanner.plan(timetable, from[0], to[to.length - 1], departAfter,
+                                    JourneyPlannerService.DEFAULT_MAX_TRANSFERS, JourneyPlannerService.DEFAULT_MIN_TRANSFER_MINUTES * 60L);
+                            database.acquireUninterruptibly();
+                            try {
+                                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(queryMillis));
+                            } finally {
+                                database.release();
+                            }
+                        }).get();
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                    served.incrementAndGet();
+                    samples[recorded++ & (samples.length - 1)] = System.nanoTime() - start;
+                }
+            });
+        }
+        clientThreads.shutdown();
+        clientThreads.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+        server.shutdown();
+        long[] all = latencies.stream().flatMapToLong(Arrays::stream).filter(v -> v > 0).sorted().toArray();
+        System.out.printf("served=%d (%.1f req/s)%n", served.get(), served.get() / (double) seconds);
+        if (all.length > 0) {
+            System.out.printf("latency p50=%.1f ms p99=%.1f ms max=%.1f ms%n",
+                    percentile(all, 0.50), percentile(all, 0.99), all[all.length - 1] / 1e6);
+        }
+    }
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))] / 1e6;
+    }
+}
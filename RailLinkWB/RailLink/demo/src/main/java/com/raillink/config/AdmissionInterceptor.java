@@ -0,0 +1,116 @@
+package com.raillink.config;
+import java.io.IOException;
+import java.security.Principal;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import com.raillink.service.AdmissionControl;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+// Applies AdmissionControl to booking writes (registered in WebConfig). Reads pass straight
+// through. Requests are queued per schedule, taken from the scheduleId parameter or the
+// X-Schedule-Id header; a queued client retries with the X-Admission-Ticket it was given.
+// Async handlers (BookingPipelineController) are dispatched a second time to write their
+// result; that dispatch was admitted already and passes through.
+@Component
+public class AdmissionInterceptor implements HandlerInterceptor {
+    public static final String TICKET_HEADER = "X-Admission-Ticket";
+    public static final String POSITION_HEADER = "X-Queue-Position";
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Value("${raillink.admission.enabled:true}")
+    private boolean enabled;
+    @Value("${raillink.admission.global-rate:200}")
+    private double globalRate;
+    @Value("${raillink.admission.global-burst:100}")
+    private int globalBurst;
+    @Value("${raillink.admission.user-rate:1}")
+    private double userRate;
+    @Value("${raillink.admission.user-burst:5}")
+    private int userBurst;
+    @Value("${raillink.admission.queue-capacity:2000}")
+    private int queueCapacity;
+    @Value("${raillink.admission.ticket-ttl-ms:15000}")
+    private long ticketTtlMillis;
+    private AdmissionControl admission;
+    // Dispatch runs off the shared @Scheduled thread so slow jobs there cannot stall the queues.
+    private final ScheduledExecutorService dispatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "admission-dispatcher");
+        t.setDaemon(true);
+        return t;
+    });
+    @PostConstruct
+    public void start() {
+        admission = new AdmissionControl(globalRate, globalBurst, userRate, userBurst, queueCapacity, ticketTtlMillis);
+        Gauge.builder("raillink.admission.queued", admission, AdmissionControl::queuedCount)
+                .description("Booking requests waiting in the per-schedule admission queues")
+                .register(meterRegistry);
+        dispatcher.scheduleAtFixedRate(admission::dispatch, 10, 10, TimeUnit.MILLISECONDS);
+        dispatcher.scheduleWithFixedDelay(admission::evictIdle, 1, 1, TimeUnit.MINUTES);
+    }
+    @PreDestroy
+    public void stop() {
+        dispatcher.shutdownNow();
+    }
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        if (!enabled || request.getDispatcherType() == DispatcherType.ASYNC || !isWrite(request.getMethod())) {
+            return true;
+        }
+        AdmissionControl.Decision decision = admission.admit(clientKey(request), queueKey(request), request.getHeader(TICKET_HEADER));
+        Counter.builder("raillink.admission")
+                .description("Booking write admission decisions")
+                .tag("outcome", decision.outcome().name().toLowerCase())
+                .register(meterRegistry)
+                .increment();
+        switch (decision.outcome()) {
+            case ADMITTED:
+                return true;
+            case QUEUED:
+                response.setHeader(TICKET_HEADER, decision.ticket());
+                response.setHeader(POSITION_HEADER, Long.toString(decision.position()));
+                reject(response, HttpStatus.TOO_MANY_REQUESTS, decision, "\"status\":\"QUEUED\",\"position\":" + decision.position()
+                        + ",\"ticket\":\"" + decision.ticket() + "\"");
+                return false;
+            case REJECTED_USER_RATE:
+                reject(response, HttpStatus.TOO_MANY_REQUESTS, decision, "\"status\":\"RATE_LIMITED\"");
+                return false;
+            default:
+                reject(response, HttpStatus.SERVICE_UNAVAILABLE, decision, "\"status\":\"QUEUE_FULL\"");
+                return false;
+        }
+    }
+    private static void reject(HttpServletResponse response, HttpStatus status, AdmissionControl.Decision decision, String fields)
+            throws IOException {
+        long retryAfterMillis = decision.retryAfterMillis();
+        response.setStatus(status.value());
+        response.setHeader("Retry-After", Long.toString(decision.retryAfterSeconds()));
+        response.setContentType("application/json");
+        response.getWriter().write("{" + fields + ",\"retryAfterMillis\":" + retryAfterMillis + "}");
+    }
+    private static boolean isWrite(String method) {
+        return !("GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method));
+    }
+    private static String clientKey(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        return principal != null ? "user:" + principal.getName() : "ip:" + request.getRemoteAddr();
+    }
+    private static String queueKey(HttpServletRequest request) {
+        String scheduleId = request.getParameter("scheduleId");
+        if (scheduleId == null) {
+            scheduleId = request.getHeader("X-Schedule-Id");
+        }
+        return scheduleId != null && scheduleId.matches("\\d{1,19}") ? scheduleId : "";
+    }
+}
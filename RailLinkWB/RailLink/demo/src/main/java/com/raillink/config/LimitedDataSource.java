@@ -0,0 +1,109 @@
+package com.raillink.config;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+// Admission control in front of the connection pool. With virtual threads there is no request
+// thread limit, so thousands of requests can queue inside the pool and time out together;
+// here callers wait on a fair semaphore sized to the pool and give up after a short timeout.
+public class LimitedDataSource extends DelegatingDataSource {
+    private final Semaphore permits;
+    private final int maxPermits;
+    private final long acquireTimeoutMillis;
+    private final Timer waitTimer;
+    private final Counter rejected;
+    public LimitedDataSource(DataSource target, int maxPermits, long acquireTimeoutMillis, MeterRegistry meterRegistry) {
+        super(target);
+        this.maxPermits = maxPermits;
+        this.permits = new Semaphore(maxPermits, true);
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.waitTimer = Timer.builder("raillink.jdbc.admission.wait")
+                .description("Time spent waiting for a JDBC admission permit")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("raillink.jdbc.admission.rejected")
+                .description("Connection requests refused after the admission timeout")
+                .register(meterRegistry);
+        Gauge.builder("raillink.jdbc.admission.in.use", () -> maxPermits - permits.availablePermits())
+                .register(meterRegistry);
+        Gauge.builder("raillink.jdbc.admission.waiting", permits::getQueueLength)
+                .register(meterRegistry);
+    }
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return wrap(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return wrap(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+    public int maxPermits() {
+        return maxPermits;
+    }
+    private void acquire() throws SQLException {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database connection", e);
+        }
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            rejected.increment();
+            throw new SQLTransientConnectionException("Database busy: no connection permit within " + acquireTimeoutMillis + " ms");
+        }
+    }
+    // The permit goes back exactly once, on the first close().
+    private Connection wrap(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        InvocationHandler handler = (proxy, method, args) -> {
+            if ("close".equals(method.getName()) && method.getParameterCount() == 0) {
+                try {
+                    connection.close();
+                } finally {
+                    if (released.compareAndSet(false, true)) {
+                        permits.release();
+                    }
+                }
+                return null;
+            }
+            if ("unwrap".equals(method.getName()) && args != null && ((Class<?>) args[0]).isInstance(proxy)) {
+                return proxy;
+            }
+            return invoke(connection, method, args);
+        };
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class}, handler);
+    }
+    private static Object invoke(Connection connection, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(connection, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.raillink.config;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+// Enables @Timed on services. HTTP endpoint timers (http.server.requests), HikariCP pool gauges
+// and Hibernate statistics are bound by Spring Boot's actuator auto-configuration.
+@Configuration
+public class MetricsConfig {
+    public static final String SERVICE_TIMER = "raillink.service";
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
@@ -0,0 +1,92 @@
+package com.raillink.config;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+// Streams the JFR jdk.VirtualThreadPinned event in-process when virtual threads are enabled.
+// Each pinning is attributed to the innermost com.raillink frame on the stack, counted in
+// raillink.virtual.pinned{site=...} and logged with its stack the first time a site is seen.
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class PinningMonitor {
+    private static final Logger log = LoggerFactory.getLogger(PinningMonitor.class);
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String APP_PACKAGE = "com.raillink.";
+    private static final int LOGGED_FRAMES = 12;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Value("${raillink.virtual.pinning-threshold-ms:20}")
+    private long thresholdMillis;
+    private final Map<String, Boolean> reportedSites = new ConcurrentHashMap<>();
+    private RecordingStream stream;
+    @PostConstruct
+    public void start() {
+        if (Runtime.version().feature() < 21) {
+            log.warn("spring.threads.virtual.enabled is set but Java {} has no virtual threads; pinning monitor not started",
+                    Runtime.version().feature());
+            return;
+        }
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(thresholdMillis)).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::record);
+        stream.startAsync();
+        log.info("Reporting virtual thread pinning longer than {} ms", thresholdMillis);
+    }
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+    private void record(RecordedEvent event) {
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        List<RecordedFrame> frames = stackTrace != null ? stackTrace.getFrames() : List.of();
+        String site = siteOf(frames);
+        Counter.builder("raillink.virtual.pinned")
+                .description("Virtual thread pinning events above the threshold")
+                .tag("site", site)
+                .register(meterRegistry)
+                .increment();
+        Timer.builder("raillink.virtual.pinned.duration")
+                .tag("site", site)
+                .register(meterRegistry)
+                .record(event.getDuration().toNanos(), TimeUnit.NANOSECONDS);
+        if (reportedSites.putIfAbsent(site, Boolean.TRUE) == null) {
+            StringBuilder stack = new StringBuilder();
+            for (int i = 0; i < frames.size() && i < LOGGED_FRAMES; i++) {
+                stack.append("\n\tat ").append(describe(frames.get(i)));
+            }
+            log.warn("Virtual thread pinned for {} ms at {}{}", event.getDuration().toMillis(), site, stack);
+        }
+    }
+    private static String siteOf(List<RecordedFrame> frames) {
+        for (RecordedFrame frame : frames) {
+            if (frame.getMethod() != null && frame.getMethod().getType().getName().startsWith(APP_PACKAGE)) {
+                return frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+            }
+        }
+        return "outside-application";
+    }
+    private static String describe(RecordedFrame frame) {
+        if (frame.getMethod() == null) {
+            return "<unknown>";
+        }
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+}
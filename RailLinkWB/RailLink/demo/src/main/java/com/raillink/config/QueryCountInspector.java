@@ -0,0 +1,22 @@
+package com.raillink.config;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+// Counts the SQL statements Hibernate prepares on the current thread. Hibernate instantiates
+// this class itself (hibernate.session_factory.statement_inspector), so the count lives in a
+// static thread-local that QueryCountInterceptor resets and reads per request.
+public class QueryCountInspector implements StatementInspector {
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+    public static int current() {
+        return COUNT.get()[0];
+    }
+    public static void clear() {
+        COUNT.remove();
+    }
+}
@@ -0,0 +1,56 @@
+package com.raillink.config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+// Records how many SQL statements each request issued, tagged by URI pattern. A request above
+// the threshold is logged and counted as a likely N+1 so it shows up before it hurts.
+@Component
+public class QueryCountInterceptor implements AsyncHandlerInterceptor {
+    private static final Logger log = LoggerFactory.getLogger(QueryCountInterceptor.class);
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Value("${raillink.metrics.query-warn-threshold:30}")
+    private int warnThreshold;
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        QueryCountInspector.reset();
+        return true;
+    }
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        int queries = QueryCountInspector.current();
+        QueryCountInspector.clear();
+        String uri = uriPattern(request);
+        DistributionSummary.builder("raillink.http.queries")
+                .description("SQL statements per request")
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(queries);
+        if (queries > warnThreshold) {
+            Counter.builder("raillink.http.queries.excessive")
+                    .description("Requests issuing more statements than the N+1 threshold")
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .increment();
+            log.warn("{} {} issued {} SQL statements (threshold {}), possible N+1", request.getMethod(), uri, queries, warnThreshold);
+        }
+    }
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Streaming responses finish on another thread; their statements are not attributed.
+        QueryCountInspector.clear();
+    }
+    private static String uriPattern(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
+}
@@ -1,5 +1,6 @@
 package com.raillink.config;
 
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -31,11 +32,14 @@ public class SecurityConfig {
                 .requestMatchers("/forgot-password", "/reset-password").permitAll()
                 .requestMatchers("/help", "/feedback", "/feedback/submit").permitAll()
                 .requestMatchers("/api/db-health", "/api/db-info").permitAll()
+                // Actuator is served on a separate loopback-only management port (see application.properties).
+                .requestMatchers(EndpointRequest.toAnyEndpoint()).permitAll()
                 .requestMatchers("/admin/**").hasRole("ADMIN")
                 .requestMatchers("/staff/**").hasAnyRole("STAFF", "ADMIN")
-                .requestMatchers("/trains/search", "/trains/search/results").permitAll()
+                .requestMatchers("/trains/search", "/trains/search/results", "/api/trains/search", "/api/trains/journeys").permitAll()
                 .requestMatchers("/bookings/new/**", "/bookings/create", "/my-bookings", "/bookings/cancel/**", "/bookings/*/ticket").hasRole("PASSENGER")
                 .requestMatchers("/api/test/**", "/api/health").permitAll()
+                // The bookings topic is checked per user in LiveUpdateSseController.
                 .requestMatchers("/api/sse/**").permitAll()
                 .requestMatchers("/api/admin/routes").permitAll()
                 .requestMatchers("/api/admin/**").hasRole("ADMIN")
@@ -0,0 +1,131 @@
+package com.raillink.config;
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourceRegion;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.ResourceHttpMessageConverter;
+import org.springframework.http.converter.ResourceRegionHttpMessageConverter;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.handler.SimpleUrlHandlerMapping;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.PathResourceResolver;
+import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
+import jakarta.servlet.ServletContext;
+// Serves /uploads. Content-hashed names (see UploadStorageService) are immutable and cached for
+// a year; any other file must be revalidated with ETag / Last-Modified. Both handlers answer
+// Range requests, prefer a pre-compressed .gz sibling when the client accepts gzip, and hand
+// larger files to Tomcat's sendfile so the bytes never pass through an application thread.
+@Configuration
+public class UploadServingConfig {
+    // Matches names written by UploadStorageService: 16 hex digits, an optional @<width>w variant and an extension.
+    static final Pattern HASHED_NAME = Pattern.compile("([0-9a-f]{16})(@\\d+w)?\\.[a-z0-9]+");
+    @Value("${raillink.uploads.dir:uploads}")
+    private String uploadsDir;
+    // Handlers built here are not beans, so they get the contexts the registry would normally
+    // pass: location resolution and media type lookup need them.
+    @Autowired
+    private ApplicationContext applicationContext;
+    @Autowired
+    private ServletContext servletContext;
+    @Bean
+    public SimpleUrlHandlerMapping uploadHandlerMapping() throws Exception {
+        Map<String, Object> handlers = new LinkedHashMap<>();
+        handlers.put("/uploads/{file:[0-9a-f]{16}[^/]*}", handler(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable()));
+        handlers.put("/uploads/**", handler(CacheControl.noCache().cachePublic()));
+        SimpleUrlHandlerMapping mapping = new SimpleUrlHandlerMapping(handlers);
+        // After @RequestMapping controllers, ahead of the default static resource mapping.
+        mapping.setOrder(1);
+        return mapping;
+    }
+    private ResourceHttpRequestHandler handler(CacheControl cacheControl) throws Exception {
+        ResourceHttpRequestHandler handler = new ResourceHttpRequestHandler();
+        String location = uploadsDir.endsWith("/") ? uploadsDir : uploadsDir + "/";
+        handler.setLocationValues(List.of("file:" + location));
+        handler.setResourceResolvers(List.of(new EncodedResourceResolver(), new PathResourceResolver()));
+        handler.setCacheControl(cacheControl);
+        handler.setUseLastModified(true);
+        handler.setEtagGenerator(UploadServingConfig::etag);
+        handler.setResourceHttpMessageConverter(new SendfileResourceConverter());
+        handler.setResourceRegionHttpMessageConverter(new SendfileRegionConverter());
+        handler.setApplicationContext(applicationContext);
+        handler.setServletContext(servletContext);
+        handler.afterPropertiesSet();
+        return handler;
+    }
+    // Hashed names carry their own strong validator; other files get a weak one from size and mtime.
+    static String etag(Resource resource) {
+        String name = resource.getFilename();
+        Matcher matcher = name != null ? HASHED_NAME.matcher(name) : null;
+        if (matcher != null && matcher.matches()) {
+            return "\"" + name + "\"";
+        }
+        try {
+            return "W/\"" + Long.toHexString(resource.contentLength()) + "-" + Long.toHexString(resource.lastModified()) + "\"";
+        } catch (IOException e) {
+            return null;
+        }
+    }
+    // Tomcat (NIO connector) advertises sendfile through a request attribute and streams the file
+    // itself once the servlet returns, provided the body has not been written.
+    private static final long SENDFILE_MIN_BYTES = 48 * 1024;
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    static boolean trySendfile(Resource resource, long start, long endExclusive) throws IOException {
+        if (endExclusive - start < SENDFILE_MIN_BYTES || !resource.isFile()) {
+            return false;
+        }
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request == null || !Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED, RequestAttributes.SCOPE_REQUEST))) {
+            return false;
+        }
+        File file = resource.getFile();
+        request.setAttribute(SENDFILE_FILENAME, file.getCanonicalPath(), RequestAttributes.SCOPE_REQUEST);
+        request.setAttribute(SENDFILE_START, start, RequestAttributes.SCOPE_REQUEST);
+        request.setAttribute(SENDFILE_END, endExclusive, RequestAttributes.SCOPE_REQUEST);
+        return true;
+    }
+    static final class SendfileResourceConverter extends ResourceHttpMessageConverter {
+        @Override
+        protected void writeContent(Resource resource, HttpOutputMessage outputMessage) throws IOException {
+            if (!trySendfile(resource, 0, resource.contentLength())) {
+                super.writeContent(resource, outputMessage);
+            }
+        }
+    }
+    static final class SendfileRegionConverter extends ResourceRegionHttpMessageConverter {
+        @Override
+        protected void writeResourceRegion(ResourceRegion region, HttpOutputMessage outputMessage) throws IOException {
+            Resource resource = region.getResource();
+            long start = region.getPosition();
+            long end = start + region.getCount();
+            if (!resource.isFile() || end - start < SENDFILE_MIN_BYTES) {
+                super.writeResourceRegion(region, outputMessage);
+                return;
+            }
+            HttpHeaders headers = outputMessage.getHeaders();
+            headers.add(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + resource.contentLength());
+            headers.setContentLength(region.getCount());
+            if (!trySendfile(resource, start, end)) {
+                headers.remove(HttpHeaders.CONTENT_RANGE);
+                super.writeResourceRegion(region, outputMessage);
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.raillink.config;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import io.micrometer.core.instrument.MeterRegistry;
+// Settings for the optional virtual-thread mode (profile "virtual-threads", Java 21+).
+// Spring Boot itself moves Tomcat, @Scheduled and the application task executor onto virtual
+// threads via spring.threads.virtual.enabled; this adds the JDBC admission limiter.
+// Code that blocks while holding a lock (JDBC reloads in StationCatalog, StationPairIndex,
+// ActiveAnnouncementService) uses ReentrantLock rather than synchronized: on Java 21 a virtual
+// thread that blocks inside a monitor stays pinned to its carrier. PinningMonitor reports any
+// pinning that remains.
+@Configuration
+public class VirtualThreadConfig {
+    @Bean
+    @ConditionalOnProperty(name = "raillink.jdbc.limiter.enabled", havingValue = "true")
+    public static BeanPostProcessor limitedDataSourcePostProcessor(Environment environment,
+                                                                   ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof LimitedDataSource) {
+                    return bean;
+                }
+                int poolSize = environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+                int permits = environment.getProperty("raillink.jdbc.limiter.permits", Integer.class, poolSize);
+                long timeout = environment.getProperty("raillink.jdbc.limiter.acquire-timeout-ms", Long.class, 2000L);
+                return new LimitedDataSource(dataSource, permits, timeout, meterRegistry.getObject());
+            }
+        };
+    }
+}
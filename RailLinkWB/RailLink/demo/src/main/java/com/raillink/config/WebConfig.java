@@ -1,14 +1,21 @@
 package com.raillink.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
+    @Autowired
+    private QueryCountInterceptor queryCountInterceptor;
+    @Autowired
+    private AdmissionInterceptor admissionInterceptor;
+    // /uploads/** is served by UploadServingConfig.
     @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:uploads/");
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Admission first, so a rejected request costs nothing else.
+        registry.addInterceptor(admissionInterceptor).addPathPatterns("/bookings/create", "/api/bookings/**");
+        registry.addInterceptor(queryCountInterceptor);
     }
 } 
\ No newline at end of file
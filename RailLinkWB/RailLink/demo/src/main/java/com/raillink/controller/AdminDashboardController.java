@@ -5,7 +5,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
@@ -17,6 +18,8 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import com.raillink.dto.BookingPage;
+import com.raillink.dto.UserPage;
 import com.raillink.model.Announcement;
 import com.raillink.model.Booking;
 import com.raillink.model.Role;
@@ -25,17 +28,30 @@ import com.raillink.model.Schedule;
 import com.raillink.model.Station;
 import com.raillink.model.Train;
 import com.raillink.model.User;
+import com.raillink.service.ActiveAnnouncementService;
 import com.raillink.service.AnnouncementService;
+import com.raillink.service.BookingQueryService;
 import com.raillink.service.BookingService;
+import com.raillink.service.DashboardStatisticsService;
+import com.raillink.service.DelayPropagationService;
+import com.raillink.service.ReferenceDataService;
 import com.raillink.service.RefundService;
 import com.raillink.service.RouteService;
+import com.raillink.service.RouteStopService;
+import com.raillink.service.ScheduleCancellationService;
+import com.raillink.service.ScheduleGenerationService;
 import com.raillink.service.ScheduleService;
+import com.raillink.service.SeatInventoryService;
+import com.raillink.service.SseHub;
+import com.raillink.service.StationPairIndex;
 import com.raillink.service.StationService;
 import com.raillink.service.TrainService;
+import com.raillink.service.UserSearchService;
 import com.raillink.service.UserService;
 @Controller
 @RequestMapping("/admin")
 public class AdminDashboardController {
+    private static final Logger log = LoggerFactory.getLogger(AdminDashboardController.class);
     @Autowired
     private TrainService trainService;
     @Autowired
@@ -52,28 +68,44 @@ public class AdminDashboardController {
     private BookingService bookingService;
     @Autowired
     private RefundService refundService;
+    @Autowired
+    private DashboardStatisticsService dashboardStatisticsService;
+    @Autowired
+    private BookingQueryService bookingQueryService;
+    @Autowired
+    private ScheduleGenerationService scheduleGenerationService;
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+    @Autowired
+    private StationPairIndex stationPairIndex;
+    @Autowired
+    private RouteStopService routeStopService;
+    @Autowired
+    private SseHub sseHub;
+    @Autowired
+    private ActiveAnnouncementService activeAnnouncementService;
+    @Autowired
+    private UserSearchService userSearchService;
+    @Autowired
+    private ReferenceDataService referenceDataService;
+    @Autowired
+    private ScheduleCancellationService scheduleCancellationService;
+    @Autowired
+    private DelayPropagationService delayPropagationService;
     @GetMapping("/dashboard")
     public String adminDashboard(Model model) {
-        List<User> users = userService.findAllUsers();
-        List<Train> trains = trainService.findAllTrains();
-        List<Station> stations = stationService.findAllStations();
-        List<Route> routes = routeService.findAllRoutes();
-        List<Booking> bookings = bookingService.findAllBookings();
-        model.addAttribute("totalUsers", users.size());
-        model.addAttribute("totalTrains", trains.size());
-        model.addAttribute("totalStations", stations.size());
-        model.addAttribute("totalRoutes", routes.size());
-        model.addAttribute("totalBookings", bookings.size());
-        List<Booking> recentBookings = bookings.stream()
-                .sorted((b1, b2) -> b2.getBookingDate().compareTo(b1.getBookingDate()))
-                .limit(5)
-                .toList();
-        model.addAttribute("recentBookings", recentBookings);
+        DashboardStatisticsService.Counts counts = dashboardStatisticsService.getCounts();
+        model.addAttribute("totalUsers", counts.users());
+        model.addAttribute("totalTrains", counts.trains());
+        model.addAttribute("totalStations", counts.stations());
+        model.addAttribute("totalRoutes", counts.routes());
+        model.addAttribute("totalBookings", counts.bookings());
+        model.addAttribute("recentBookings", dashboardStatisticsService.findRecentBookings(5));
         return "admin/dashboard";
     }
     @GetMapping("/trains")
     public String listTrains(Model model) {
-        List<Train> trains = trainService.findAllTrains();
+        List<Train> trains = referenceDataService.findAllTrains();
         model.addAttribute("trains", trains);
         return "admin/trains";
     }
@@ -109,11 +141,13 @@ public class AdminDashboardController {
             train.setClasses(classes);
         }
         trainService.saveTrain(train);
+        stationPairIndex.touch();
         return "redirect:/admin/trains";
     }
     @GetMapping("/trains/delete/{id}")
     public String deleteTrain(@PathVariable Long id) {
         trainService.deleteTrain(id);
+        stationPairIndex.touch();
         return "redirect:/admin/trains";
     }
     @GetMapping("/stations")
@@ -151,7 +185,7 @@ public class AdminDashboardController {
     }
     @GetMapping("/routes")
     public String listRoutes(Model model) {
-        List<Route> routes = routeService.findAllRoutes();
+        List<Route> routes = referenceDataService.findAllRoutes();
         model.addAttribute("routes", routes);
         return "admin/routes";
     }
@@ -169,11 +203,12 @@ public class AdminDashboardController {
         model.addAttribute("route", route);
         List<Station> stations = stationService.findAllStations();
         model.addAttribute("stations", stations);
-        if (route.getPath() != null && !route.getPath().trim().isEmpty()) {
-            List<String> selectedStationIds = routeService.convertPathToStationIds(route.getPath())
-                .stream()
-                .map(String::valueOf)
-                .collect(java.util.stream.Collectors.toList());
+        long[] stops = routeStopService.stopsOf(id);
+        if (stops.length > 0) {
+            List<String> selectedStationIds = new java.util.ArrayList<>(stops.length);
+            for (long stop : stops) {
+                selectedStationIds.add(String.valueOf(stop));
+            }
             model.addAttribute("selectedStationIds", selectedStationIds);
         }
         return "admin/route-form";
@@ -182,26 +217,21 @@ public class AdminDashboardController {
     public String saveRoute(@ModelAttribute Route route, 
                            @RequestParam(value = "stationIds", required = false) List<Long> stationIds,
                            @RequestParam(value = "orderedStationIds", required = false) String orderedStationIds) {
+        long[] stops = null;
         if (orderedStationIds != null && !orderedStationIds.trim().isEmpty()) {
-            try {
-                route.setPath(orderedStationIds);
-            } catch (Exception e) {
-                System.err.println("Error saving ordered station path: " + e.getMessage());
-            }
+            stops = RouteStopService.parsePath(orderedStationIds);
         } else if (stationIds != null && !stationIds.isEmpty()) {
-            try {
-                String path = routeService.convertStationIdsToPath(stationIds);
-                route.setPath(path);
-            } catch (Exception e) {
-                System.err.println("Error saving station path: " + e.getMessage());
-            }
+            stops = RouteStopService.toArray(stationIds);
         }
-        routeService.saveRoute(route);
+        routeStopService.saveRoute(route, stops);
+        stationPairIndex.refreshRoute(route.getId());
         return "redirect:/admin/routes";
     }
     @GetMapping("/routes/delete/{id}")
     public String deleteRoute(@PathVariable Long id) {
         routeService.deleteRoute(id);
+        routeStopService.deleteStops(id);
+        stationPairIndex.refreshRoute(id);
         return "redirect:/admin/routes";
     }
     @GetMapping("/announcements")
@@ -219,8 +249,7 @@ public class AdminDashboardController {
             model.addAttribute("announcement", announcement);
             return "admin/announcement-form";
         } catch (Exception e) {
-            System.err.println("Error in addAnnouncement: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error in addAnnouncement", e);
             model.addAttribute("error", "Error loading announcement form: " + e.getMessage());
             return "redirect:/admin/announcements";
         }
@@ -252,6 +281,8 @@ public class AdminDashboardController {
             a.setEndDate(end);
             if (authentication != null) a.setAuthor(authentication.getName());
             announcementService.save(a);
+            activeAnnouncementService.refresh();
+            sseHub.publish("announcements", "announcements-changed", "announcements", Map.of("id", a.getId() != null ? a.getId() : 0L));
             redirectAttributes.addFlashAttribute("success", "Announcement saved successfully");
             return "redirect:/admin/announcements";
         } catch (Exception e) {
@@ -262,6 +293,8 @@ public class AdminDashboardController {
     @GetMapping("/announcements/delete/{id}")
     public String deleteAnnouncement(@PathVariable Long id) {
         announcementService.deleteById(id);
+        activeAnnouncementService.refresh();
+        sseHub.publish("announcements", "announcements-changed", "announcements", Map.of("id", id));
         return "redirect:/admin/announcements";
     }
     @GetMapping("/schedules")
@@ -276,8 +309,8 @@ public class AdminDashboardController {
         schedule.setDepartureDate(LocalDateTime.now());
         schedule.setArrivalDate(LocalDateTime.now().plusHours(1));
         schedule.setStatus("ON_TIME");
-        List<Train> trains = trainService.findAllTrains();
-        List<Route> routes = routeService.findAllRoutes();
+        List<Train> trains = referenceDataService.findAllTrains();
+        List<Route> routes = referenceDataService.findAllRoutes();
         List<Station> stations = stationService.findAllStations();
         model.addAttribute("schedule", schedule);
         model.addAttribute("trains", trains);
@@ -289,8 +322,8 @@ public class AdminDashboardController {
     public String editSchedule(@PathVariable Long id, Model model) {
         Schedule schedule = scheduleService.findScheduleById(id)
                 .orElseThrow(() -> new RuntimeException("Schedule not found"));
-        List<Train> trains = trainService.findAllTrains();
-        List<Route> routes = routeService.findAllRoutes();
+        List<Train> trains = referenceDataService.findAllTrains();
+        List<Route> routes = referenceDataService.findAllRoutes();
         List<Station> stations = stationService.findAllStations();
         model.addAttribute("schedule", schedule);
         model.addAttribute("trains", trains);
@@ -332,7 +365,7 @@ public class AdminDashboardController {
                             java.math.BigDecimal price = new java.math.BigDecimal(classPrices.get(i));
                             pricing.put(classNames.get(i), price);
                         } catch (NumberFormatException e) {
-                            System.err.println("Invalid price format: " + classPrices.get(i));
+                            log.warn("Invalid price format: {}", classPrices.get(i));
                         }
                     }
                 }
@@ -341,33 +374,34 @@ public class AdminDashboardController {
             if (dailySchedule != null && dailySchedule && startDate != null && endDate != null) {
                 LocalDate start = LocalDate.parse(startDate);
                 LocalDate end = LocalDate.parse(endDate);
-                for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
-                    Schedule dailyScheduleInstance = new Schedule();
-                    dailyScheduleInstance.setTrain(train);
-                    dailyScheduleInstance.setRoute(route);
-                    dailyScheduleInstance.setScheduleName(scheduleName);
-                    dailyScheduleInstance.setStatus(schedule.getStatus());
-                    dailyScheduleInstance.setDelayMinutes(delayMinutes);
-                    if (schedule.getPricingJson() != null) {
-                        dailyScheduleInstance.setPricingJson(schedule.getPricingJson());
-                    }
-                    LocalDateTime depTime = schedule.getDepartureDate();
-                    LocalDateTime arrTime = schedule.getArrivalDate();
-                    LocalDateTime newDep = date.atTime(depTime.toLocalTime());
-                    LocalDateTime newArr = date.atTime(arrTime.toLocalTime());
-                    
-                    // If arrival time is before departure time, it means the train arrives the next day
-                    if (newArr.isBefore(newDep) || newArr.isEqual(newDep)) {
-                        newArr = newArr.plusDays(1);
-                    }
-                    
-                    dailyScheduleInstance.setDepartureDate(newDep);
-                    dailyScheduleInstance.setArrivalDate(newArr);
-                    scheduleService.saveSchedule(dailyScheduleInstance);
+                ScheduleGenerationService.DailyTemplate template = new ScheduleGenerationService.DailyTemplate(
+                        train, route, scheduleName, schedule.getStatus(), delayMinutes, schedule.getPricingJson(),
+                        schedule.getDepartureDate().toLocalTime(), schedule.getArrivalDate().toLocalTime());
+                if (scheduleGenerationService.runsInBackground(start, end)) {
+                    String jobId = scheduleGenerationService.submit(template, start, end);
+                    redirectAttributes.addFlashAttribute("success", "Daily schedules are being generated in the background (job " + jobId + ")");
+                    redirectAttributes.addFlashAttribute("scheduleGenerationJobId", jobId);
+                } else {
+                    int created = scheduleGenerationService.generate(template, start, end);
+                    redirectAttributes.addFlashAttribute("success", created + " daily schedules created successfully");
                 }
-                redirectAttributes.addFlashAttribute("success", "Daily schedules created successfully");
             } else {
+                Long previousRouteId = schedule.getId() == null ? null : scheduleService.findScheduleById(schedule.getId())
+                        .map(existing -> existing.getRoute().getId())
+                        .orElse(null);
                 scheduleService.saveSchedule(schedule);
+                if (previousRouteId != null && !previousRouteId.equals(route.getId())) {
+                    stationPairIndex.refreshSchedules(previousRouteId);
+                }
+                stationPairIndex.refreshSchedules(route.getId());
+                if (schedule.getDelayMinutes() != null) {
+                    delayPropagationService.record(schedule.getId(), schedule.getDelayMinutes(), 0, false);
+                }
+                Map<String, Object> update = new HashMap<>();
+                update.put("scheduleId", schedule.getId());
+                update.put("status", schedule.getStatus());
+                update.put("delayMinutes", schedule.getDelayMinutes());
+                sseHub.publish("schedules", "schedule-updated", "schedule:" + schedule.getId(), update);
                 redirectAttributes.addFlashAttribute("success", "Schedule saved successfully");
             }
             return "redirect:/admin/schedules";
@@ -378,20 +412,34 @@ public class AdminDashboardController {
     }
     @GetMapping("/schedules/delete/{id}")
     public String deleteSchedule(@PathVariable Long id) {
+        Optional<Long> routeId = scheduleService.findScheduleById(id).map(schedule -> schedule.getRoute().getId());
         scheduleService.deleteSchedule(id);
+        routeId.ifPresent(stationPairIndex::refreshSchedules);
         return "redirect:/admin/schedules";
     }
-    @GetMapping("/users")
-    public String listUsers(@RequestParam(value = "q", required = false) String query, Model model) {
-        List<User> users = userService.findAllUsers();
-        if (query != null && !query.isBlank()) {
-            String lower = query.toLowerCase();
-            users = users.stream()
-                    .filter(u -> u.getUsername().toLowerCase().contains(lower)
-                            || u.getEmail().toLowerCase().contains(lower))
-                    .collect(Collectors.toList());
+    @PostMapping("/schedules/cancel/{id}")
+    public String cancelSchedule(@PathVariable Long id,
+                                 @RequestParam(required = false) String reason,
+                                 RedirectAttributes redirectAttributes) {
+        try {
+            ScheduleCancellationService.CancellationStatus job = scheduleCancellationService.submit(id, reason);
+            redirectAttributes.addFlashAttribute("success", "Schedule is being cancelled in the background (job " + job.id() + ")");
+            redirectAttributes.addFlashAttribute("scheduleCancellationJobId", job.id());
+        } catch (IllegalArgumentException e) {
+            redirectAttributes.addFlashAttribute("error", "Error cancelling schedule: " + e.getMessage());
         }
-        model.addAttribute("users", users);
+        return "redirect:/admin/schedules";
+    }
+    @GetMapping("/users")
+    public String listUsers(@RequestParam(value = "q", required = false) String query,
+                            @RequestParam(required = false) Long after,
+                            @RequestParam(defaultValue = "50") int size,
+                            Model model) {
+        UserPage page = userSearchService.search(query, after, size);
+        model.addAttribute("users", page.items());
+        model.addAttribute("nextCursor", page.nextCursor());
+        model.addAttribute("hasMore", page.hasMore());
+        model.addAttribute("pageSize", page.size());
         model.addAttribute("query", query);
         model.addAttribute("roles", Role.values());
         return "admin/users";
@@ -486,47 +534,28 @@ public class AdminDashboardController {
     @GetMapping("/bookings")
     public String listBookings(@RequestParam(required = false) String passenger,
                               @RequestParam(required = false) String bookingId,
+                              @RequestParam(required = false) Long before,
+                              @RequestParam(defaultValue = "50") int size,
                               Model model) {
-        System.out.println("=== ADMIN BOOKINGS PAGE LOADED ===");
-        System.out.println("Search parameters - Passenger: " + passenger + ", Booking ID: " + bookingId);
-        
-        List<Booking> bookings;
-        
-        // Apply search filters
+        BookingPage page;
         if (bookingId != null && !bookingId.trim().isEmpty()) {
-            // Search by booking ID
             try {
-                Long id = Long.parseLong(bookingId.trim());
-                Optional<Booking> booking = bookingService.findBookingById(id);
-                bookings = booking.map(List::of).orElse(List.of());
-                System.out.println("Searching by booking ID: " + id + ", Found: " + bookings.size());
+                page = bookingQueryService.findById(Long.parseLong(bookingId.trim()));
             } catch (NumberFormatException e) {
-                System.out.println("Invalid booking ID format: " + bookingId);
-                bookings = List.of();
+                page = new BookingPage(List.of(), null, size);
             }
         } else if (passenger != null && !passenger.trim().isEmpty()) {
-            // Search by passenger name or email
-            bookings = bookingService.findBookingsByPassenger(passenger.trim());
-            System.out.println("Searching by passenger: " + passenger + ", Found: " + bookings.size());
+            page = bookingQueryService.findPageByPassenger(passenger, before, size);
         } else {
-            // No search criteria, return all bookings
-            bookings = bookingService.findAllBookings();
-            System.out.println("No search criteria, returning all bookings: " + bookings.size());
-        }
-        
-        for (Booking booking : bookings) {
-            System.out.println("Booking ID: " + booking.getId() + 
-                             ", Status: " + booking.getStatus() + 
-                             ", User: " + booking.getUser().getUsername());
+            page = bookingQueryService.findPage(before, size);
         }
-        
-        // Add users and schedules for create booking form
-        List<User> users = userService.findAllUsers();
-        List<Schedule> schedules = scheduleService.findAllSchedules();
-        
-        model.addAttribute("bookings", bookings);
-        model.addAttribute("users", users);
-        model.addAttribute("schedules", schedules);
+        // Users and schedules for the create booking form are loaded from /api/admin/lookup.
+        model.addAttribute("bookings", page.items());
+        model.addAttribute("nextCursor", page.nextCursor());
+        model.addAttribute("hasMore", page.hasMore());
+        model.addAttribute("pageSize", page.size());
+        model.addAttribute("passenger", passenger);
+        model.addAttribute("bookingId", bookingId);
         return "admin/bookings";
     }
     @GetMapping("/bookings/edit/{id}")
@@ -549,12 +578,29 @@ public class AdminDashboardController {
                     .orElseThrow(() -> new RuntimeException("Booking not found"));
             Schedule newSchedule = scheduleService.findScheduleById(scheduleId)
                     .orElseThrow(() -> new RuntimeException("Schedule not found"));
-            booking.setSchedule(newSchedule);
-            booking.setSeatNumber(seatNumber);
+            Long oldScheduleId = booking.getSchedule().getId();
+            boolean wasActive = !"CANCELLED".equals(booking.getStatus());
+            boolean seatChanged = !newSchedule.getId().equals(oldScheduleId) || !seatNumber.equals(booking.getSeatNumber());
             if (status != null && !status.isEmpty()) {
                 booking.setStatus(status);
             }
-            bookingService.saveBooking(booking);
+            boolean isActive = !"CANCELLED".equals(booking.getStatus());
+            // The new seat is claimed before the save; BookingChangeListener frees the old one after the commit.
+            SeatInventoryService.Seat seat = null;
+            if (isActive && (seatChanged || !wasActive)) {
+                seat = seatInventoryService.reserve(newSchedule.getId(), booking.getTicketClass(), seatNumber);
+                booking.setTicketClass(seat.ticketClass());
+            }
+            booking.setSchedule(newSchedule);
+            booking.setSeatNumber(seat != null ? seat.seatNumber() : seatNumber);
+            try {
+                bookingService.saveBooking(booking);
+            } catch (RuntimeException e) {
+                if (seat != null) {
+                    seatInventoryService.release(newSchedule.getId(), seat.ticketClass(), seat.seatNumber());
+                }
+                throw e;
+            }
             redirectAttributes.addFlashAttribute("success", "Booking updated successfully");
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("error", "Error updating booking: " + e.getMessage());
@@ -576,7 +622,7 @@ public class AdminDashboardController {
                     .orElseThrow(() -> new RuntimeException("Schedule not found"));
             
             // Create the booking
-            Booking booking = bookingService.createBooking(user, schedule, seatNumber, ticketClass);
+            Booking booking = seatInventoryService.book(user, schedule, seatNumber, ticketClass);
             booking.setStatus(status);
             bookingService.saveBooking(booking);
             
@@ -612,41 +658,29 @@ public class AdminDashboardController {
     @GetMapping("/bookings/cancel/{id}")
     public String cancelBooking(@PathVariable Long id, RedirectAttributes redirectAttributes) {
         try {
-            System.out.println("Attempting to cancel booking with ID: " + id);
             bookingService.cancelBooking(id);
-            System.out.println("Booking cancelled successfully");
+            log.debug("Cancelled booking {}", id);
             redirectAttributes.addFlashAttribute("success", "Booking cancelled successfully");
         } catch (Exception e) {
-            System.err.println("Error cancelling booking: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error cancelling booking {}", id, e);
             redirectAttributes.addFlashAttribute("error", "Error cancelling booking: " + e.getMessage());
         }
         return "redirect:/admin/bookings";
     }
     @GetMapping("/bookings/delete/{id}")
     public String deleteBooking(@PathVariable Long id, RedirectAttributes redirectAttributes) {
-        System.out.println("=== ADMIN DELETE BOOKING ENDPOINT CALLED ===");
-        System.out.println("Received request to delete booking with ID: " + id);
-        System.out.println("ID type: " + id.getClass().getSimpleName());
         try {
-            System.out.println("Attempting to permanently delete booking with ID: " + id);
-            boolean exists = bookingService.findBookingById(id).isPresent();
-            System.out.println("Booking exists: " + exists);
-            if (!exists) {
-                System.out.println("Booking not found with ID: " + id);
+            Optional<Booking> booking = bookingService.findBookingById(id);
+            if (booking.isEmpty()) {
                 redirectAttributes.addFlashAttribute("error", "Booking not found with ID: " + id);
                 return "redirect:/admin/bookings";
             }
-            System.out.println("Deleting associated refunds for booking ID: " + id);
             refundService.deleteRefundsByBookingId(id);
-            System.out.println("Refunds deleted successfully");
-            System.out.println("Deleting booking from database");
             bookingService.deleteBooking(id);
-            System.out.println("Booking deleted successfully from database");
+            log.debug("Deleted booking {} and its refunds", id);
             redirectAttributes.addFlashAttribute("success", "Booking and associated refunds deleted permanently from database");
         } catch (Exception e) {
-            System.err.println("Error deleting booking: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error deleting booking {}", id, e);
             redirectAttributes.addFlashAttribute("error", "Error deleting booking: " + e.getMessage());
         }
         return "redirect:/admin/bookings";
@@ -666,11 +700,10 @@ public class AdminDashboardController {
             }
             User user = users.get(0);
             Schedule schedule = schedules.get(0);
-            Booking testBooking = bookingService.createBooking(user, schedule, "A1");
+            Booking testBooking = seatInventoryService.book(user, schedule, null, null);
             redirectAttributes.addFlashAttribute("success", "Test booking created with ID: " + testBooking.getId());
         } catch (Exception e) {
-            System.err.println("Error creating test booking: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error creating test booking", e);
             redirectAttributes.addFlashAttribute("error", "Error creating test booking: " + e.getMessage());
         }
         return "redirect:/admin/bookings";
@@ -0,0 +1,26 @@
+package com.raillink.controller;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import com.raillink.dto.ScheduleOption;
+import com.raillink.dto.UserOption;
+import com.raillink.service.AdminLookupService;
+@RestController
+@RequestMapping("/api/admin/lookup")
+public class AdminLookupController {
+    @Autowired
+    private AdminLookupService adminLookupService;
+    @GetMapping("/users")
+    public List<UserOption> users(@RequestParam(value = "q", required = false) String query,
+                                  @RequestParam(defaultValue = "20") int limit) {
+        return adminLookupService.findUsers(query, limit);
+    }
+    @GetMapping("/schedules")
+    public List<ScheduleOption> schedules(@RequestParam(value = "q", required = false) String query,
+                                          @RequestParam(defaultValue = "20") int limit) {
+        return adminLookupService.findUpcomingSchedules(query, limit);
+    }
+}
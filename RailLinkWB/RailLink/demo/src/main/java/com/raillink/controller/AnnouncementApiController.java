@@ -0,0 +1,16 @@
+package com.raillink.controller;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import com.raillink.model.Announcement;
+import com.raillink.service.ActiveAnnouncementService;
+@RestController
+public class AnnouncementApiController {
+    @Autowired
+    private ActiveAnnouncementService activeAnnouncementService;
+    @GetMapping("/api/announcements/active")
+    public List<Announcement> active() {
+        return activeAnnouncementService.findActive();
+    }
+}
@@ -0,0 +1,44 @@
+package com.raillink.controller;
+import java.security.Principal;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import com.raillink.repository.UserQueryRepository;
+import com.raillink.service.BookingPipeline;
+// Booking through the per-schedule pipeline. The request thread is released while the booking
+// waits for its batch; the response is written when the batch commits.
+@RestController
+@RequestMapping("/api/bookings/pipeline")
+public class BookingPipelineController {
+    @Autowired
+    private BookingPipeline bookingPipeline;
+    @Autowired
+    private UserQueryRepository userQueryRepository;
+    @PostMapping
+    public CompletableFuture<ResponseEntity<Object>> book(@RequestParam Long scheduleId,
+                                                          @RequestParam(required = false) String ticketClass,
+                                                          @RequestParam(required = false) String seatNumber,
+                                                          Principal principal) {
+        Long userId = principal != null ? userQueryRepository.findIdByUsername(principal.getName()).orElse(null) : null;
+        if (userId == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+        }
+        return bookingPipeline.submit(new BookingPipeline.BookingRequest(userId, scheduleId, ticketClass, seatNumber))
+                .handle((result, error) -> {
+                    if (error == null) {
+                        return ResponseEntity.status(HttpStatus.CREATED).body(result);
+                    }
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    HttpStatus status = cause instanceof RejectedExecutionException ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.CONFLICT;
+                    return ResponseEntity.status(status).body(Map.of("error", String.valueOf(cause.getMessage())));
+                });
+    }
+}
@@ -0,0 +1,31 @@
+package com.raillink.controller;
+import java.security.Principal;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import com.raillink.service.SseHub;
+@RestController
+public class LiveUpdateSseController {
+    @Autowired
+    private SseHub sseHub;
+    // Open to everyone for public topics; the bookings topic needs a signed-in user and carries
+    // only that user's booking events.
+    @GetMapping(value = "/api/sse/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> live(@RequestParam(value = "topic", required = false) Set<String> topics,
+                                           Principal principal) {
+        if (principal == null && topics != null && topics.contains(SseHub.BOOKINGS_TOPIC)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(sseHub.subscribe(topics, principal != null ? principal.getName() : null));
+    }
+    @GetMapping("/api/admin/sse/stats")
+    public SseHub.Stats stats() {
+        return sseHub.stats();
+    }
+}
@@ -0,0 +1,38 @@
+package com.raillink.controller;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import com.raillink.service.OccupancyStore;
+@RestController
+@RequestMapping("/api/admin/occupancy")
+public class OccupancyApiController {
+    @Autowired
+    private OccupancyStore occupancyStore;
+    // Load per route and departure date; with ticketClass the rows cover that class only.
+    @GetMapping
+    public List<OccupancyStore.LoadSummary> summary(@RequestParam(required = false) Long routeId,
+                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                    @RequestParam(required = false) String ticketClass) {
+        return occupancyStore.summarize(routeId, from, to, ticketClass);
+    }
+    @GetMapping("/schedules/{id}")
+    public ResponseEntity<OccupancyStore.ScheduleLoad> schedule(@PathVariable Long id) {
+        return occupancyStore.findSchedule(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    @PostMapping("/rebuild")
+    public Map<String, Integer> rebuild() {
+        return Map.of("schedules", occupancyStore.rebuild());
+    }
+}
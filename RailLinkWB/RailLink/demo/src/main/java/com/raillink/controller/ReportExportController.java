@@ -0,0 +1,57 @@
+package com.raillink.controller;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import com.raillink.service.ReportExportService;
+import jakarta.servlet.http.HttpServletResponse;
+// Reports are written to the servlet output stream as they are read; from is inclusive and
+// to is exclusive, both optional (booking date for bookings, departure date for schedules).
+@RestController
+@RequestMapping("/api/admin/export")
+public class ReportExportController {
+    @Autowired
+    private ReportExportService reportExportService;
+    @GetMapping("/bookings")
+    public void bookings(@RequestParam(required = false) String format,
+                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                         HttpServletResponse response) throws IOException {
+        Optional<ReportExportService.Format> parsed = ReportExportService.Format.parse(format);
+        if (parsed.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "format must be csv or ndjson");
+            return;
+        }
+        start(response, parsed.get(), "bookings");
+        reportExportService.exportBookings(parsed.get(), startOf(from), startOf(to), response.getOutputStream());
+    }
+    @GetMapping("/schedules")
+    public void schedules(@RequestParam(required = false) String format,
+                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                          HttpServletResponse response) throws IOException {
+        Optional<ReportExportService.Format> parsed = ReportExportService.Format.parse(format);
+        if (parsed.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "format must be csv or ndjson");
+            return;
+        }
+        start(response, parsed.get(), "schedules");
+        reportExportService.exportSchedules(parsed.get(), startOf(from), startOf(to), response.getOutputStream());
+    }
+    private static void start(HttpServletResponse response, ReportExportService.Format format, String name) {
+        response.setContentType(format.contentType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + name + "-" + LocalDate.now() + "." + format.extension() + "\"");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+    }
+    private static LocalDateTime startOf(LocalDate date) {
+        return date != null ? date.atStartOfDay() : null;
+    }
+}
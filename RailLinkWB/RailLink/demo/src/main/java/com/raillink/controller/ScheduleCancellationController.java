@@ -0,0 +1,32 @@
+package com.raillink.controller;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import com.raillink.service.ScheduleCancellationService;
+@RestController
+@RequestMapping("/api/admin/schedules")
+public class ScheduleCancellationController {
+    @Autowired
+    private ScheduleCancellationService scheduleCancellationService;
+    @PostMapping("/{id}/cancellation")
+    public ResponseEntity<ScheduleCancellationService.CancellationStatus> cancel(@PathVariable Long id,
+                                                                               @RequestParam(required = false) String reason) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(scheduleCancellationService.submit(id, reason));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    @GetMapping("/cancellations/{jobId}")
+    public ResponseEntity<ScheduleCancellationService.CancellationStatus> status(@PathVariable String jobId) {
+        return scheduleCancellationService.findJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,30 @@
+package com.raillink.controller;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import com.raillink.service.DelayPropagationService;
+@RestController
+@RequestMapping("/api/admin/schedules/{id}/delay")
+public class ScheduleDelayController {
+    @Autowired
+    private DelayPropagationService delayPropagationService;
+    // Accepted at once; the propagation result is published on the "delays" live update topic.
+    @PostMapping
+    public ResponseEntity<Void> report(@PathVariable Long id,
+                                       @RequestParam int minutes,
+                                       @RequestParam(defaultValue = "0") int fromStop) {
+        delayPropagationService.record(id, minutes, fromStop, true);
+        return ResponseEntity.accepted().build();
+    }
+    @GetMapping
+    public ResponseEntity<DelayPropagationService.Propagation> current(@PathVariable Long id) {
+        return delayPropagationService.find(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,20 @@
+package com.raillink.controller;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import com.raillink.service.ScheduleGenerationService;
+@RestController
+@RequestMapping("/api/admin/schedules/generation")
+public class ScheduleGenerationController {
+    @Autowired
+    private ScheduleGenerationService scheduleGenerationService;
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ScheduleGenerationService.JobStatus> status(@PathVariable String jobId) {
+        return scheduleGenerationService.findJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,36 @@
+package com.raillink.controller;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import com.raillink.model.Facility;
+import com.raillink.model.Station;
+import com.raillink.service.StationService;
+@RestController
+@RequestMapping("/api/stations")
+public class StationApiController {
+    @Autowired
+    private StationService stationService;
+    @GetMapping("/facilities")
+    public Facility[] facilities() {
+        return Facility.values();
+    }
+    @GetMapping("/search")
+    public List<Station> search(@RequestParam(value = "all", required = false) List<String> all,
+                                @RequestParam(value = "any", required = false) List<String> any) {
+        return stationService.findStationsByFacilities(parseFacilities(all), parseFacilities(any));
+    }
+    static Set<Facility> parseFacilities(List<String> values) {
+        Set<Facility> facilities = EnumSet.noneOf(Facility.class);
+        if (values != null) {
+            for (String value : values) {
+                Facility.parse(value).ifPresent(facilities::add);
+            }
+        }
+        return facilities;
+    }
+}
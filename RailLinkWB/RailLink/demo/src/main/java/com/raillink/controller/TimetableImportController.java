@@ -0,0 +1,33 @@
+package com.raillink.controller;
+import java.io.IOException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import com.raillink.service.TimetableImportService;
+@RestController
+@RequestMapping("/api/admin/import/timetable")
+public class TimetableImportController {
+    @Autowired
+    private TimetableImportService timetableImportService;
+    @PostMapping
+    public ResponseEntity<TimetableImportService.ImportStatus> upload(@RequestParam("file") MultipartFile file) throws IOException {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(timetableImportService.submit(file));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    @GetMapping("/{jobId}")
+    public ResponseEntity<TimetableImportService.ImportStatus> status(@PathVariable String jobId) {
+        return timetableImportService.findJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
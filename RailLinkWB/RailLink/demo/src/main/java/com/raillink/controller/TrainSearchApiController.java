@@ -0,0 +1,52 @@
+package com.raillink.controller;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import com.raillink.dto.Journey;
+import com.raillink.dto.ScheduleMatch;
+import com.raillink.service.JourneyPlannerService;
+import com.raillink.service.TrainSearchService;
+@RestController
+@RequestMapping("/api/trains")
+public class TrainSearchApiController {
+    @Autowired
+    private TrainSearchService trainSearchService;
+    @Autowired
+    private JourneyPlannerService journeyPlannerService;
+    // The ETag is the timetable version, so a revalidation is answered without running the search.
+    @GetMapping("/search")
+    public ResponseEntity<List<ScheduleMatch>> search(@RequestParam Long from,
+                                                      @RequestParam Long to,
+                                                      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+                                                      @RequestParam(required = false) List<String> facilities,
+                                                      @RequestParam(required = false) String travelClass,
+                                                      WebRequest request) {
+        String etag = trainSearchService.etag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePublic())
+                .eTag(etag)
+                .body(trainSearchService.search(from, to, date, StationApiController.parseFacilities(facilities), travelClass));
+    }
+    @GetMapping("/journeys")
+    public List<Journey> journeys(@RequestParam Long from,
+                                  @RequestParam Long to,
+                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime departAfter,
+                                  @RequestParam(required = false) Integer maxTransfers,
+                                  @RequestParam(required = false) Integer minTransferMinutes,
+                                  @RequestParam(required = false) List<String> facilities) {
+        return journeyPlannerService.plan(from, to, departAfter, maxTransfers, minTransferMinutes,
+                StationApiController.parseFacilities(facilities));
+    }
+}
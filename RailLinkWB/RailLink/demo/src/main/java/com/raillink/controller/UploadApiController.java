@@ -0,0 +1,28 @@
+package com.raillink.controller;
+import java.io.IOException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import com.raillink.service.UploadStorageService;
+@RestController
+@RequestMapping("/api/admin/uploads")
+public class UploadApiController {
+    @Autowired
+    private UploadStorageService uploadStorageService;
+    @PostMapping
+    public ResponseEntity<UploadStorageService.StoredUpload> upload(@RequestParam("file") MultipartFile file) throws IOException {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(uploadStorageService.store(file));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
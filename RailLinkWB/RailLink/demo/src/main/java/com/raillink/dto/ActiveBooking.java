@@ -0,0 +1,3 @@
+package com.raillink.dto;
+public record ActiveBooking(long bookingId, String ticketClass, boolean refunded, String username) {
+}
@@ -0,0 +1,3 @@
+package com.raillink.dto;
+public record BookingOwner(Long bookingId, String username) {
+}
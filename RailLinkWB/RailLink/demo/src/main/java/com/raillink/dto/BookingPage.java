@@ -0,0 +1,8 @@
+package com.raillink.dto;
+import java.util.List;
+// One keyset page of admin bookings; nextCursor is the id to pass as "before" for the next page.
+public record BookingPage(List<BookingSummary> items, Long nextCursor, int size) {
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,17 @@
+package com.raillink.dto;
+import java.time.LocalDateTime;
+// Flat row for the admin bookings table; populated by a JPQL constructor expression.
+public record BookingSummary(
+        Long id,
+        LocalDateTime bookingDate,
+        String status,
+        String seatNumber,
+        String ticketClass,
+        Long userId,
+        String username,
+        String email,
+        Long scheduleId,
+        String scheduleName,
+        LocalDateTime departureDate,
+        String trainName) {
+}
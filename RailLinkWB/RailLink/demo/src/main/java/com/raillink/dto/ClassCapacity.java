@@ -0,0 +1,4 @@
+package com.raillink.dto;
+import java.time.LocalDateTime;
+public record ClassCapacity(Long scheduleId, String ticketClass, Integer capacity, LocalDateTime departureDate) {
+}
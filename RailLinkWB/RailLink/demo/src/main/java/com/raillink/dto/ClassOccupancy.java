@@ -0,0 +1,4 @@
+package com.raillink.dto;
+// Active (not cancelled) bookings on one schedule in one ticket class; a null class is the general pool.
+public record ClassOccupancy(Long scheduleId, String ticketClass, Long booked) {
+}
@@ -0,0 +1,5 @@
+package com.raillink.dto;
+import java.time.LocalDateTime;
+import java.util.List;
+public record Journey(LocalDateTime departureDate, LocalDateTime arrivalDate, int transfers, List<JourneyLeg> legs) {
+}
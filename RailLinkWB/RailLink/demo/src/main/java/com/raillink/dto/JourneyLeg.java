@@ -0,0 +1,5 @@
+package com.raillink.dto;
+import java.time.LocalDateTime;
+public record JourneyLeg(Long scheduleId, Long fromStationId, Long toStationId,
+                         LocalDateTime departureDate, LocalDateTime arrivalDate) {
+}
@@ -0,0 +1,4 @@
+package com.raillink.dto;
+import java.math.BigDecimal;
+public record NewRefund(long bookingId, BigDecimal amount) {
+}
@@ -0,0 +1,5 @@
+package com.raillink.dto;
+import java.time.LocalDateTime;
+public record NewSchedule(long trainId, long routeId, String scheduleName, String status, Integer delayMinutes,
+                          String pricingJson, LocalDateTime departureDate, LocalDateTime arrivalDate) {
+}
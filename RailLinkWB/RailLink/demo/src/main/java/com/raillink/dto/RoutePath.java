@@ -0,0 +1,3 @@
+package com.raillink.dto;
+public record RoutePath(Long routeId, String path) {
+}
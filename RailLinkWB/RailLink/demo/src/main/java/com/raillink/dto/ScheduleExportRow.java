@@ -0,0 +1,16 @@
+package com.raillink.dto;
+import java.time.LocalDateTime;
+// One schedule line for CSV/NDJSON reports; populated by a JPQL constructor expression.
+public record ScheduleExportRow(
+        Long id,
+        String scheduleName,
+        String status,
+        Integer delayMinutes,
+        LocalDateTime departureDate,
+        LocalDateTime arrivalDate,
+        Long trainId,
+        String trainName,
+        Long routeId,
+        String routePath,
+        String pricingJson) {
+}
@@ -0,0 +1,8 @@
+package com.raillink.dto;
+import java.time.LocalDateTime;
+// A schedule serving an origin/destination pair; stop positions are 0-based indexes into the route path.
+// departureDate and arrivalDate cover the whole route, originDeparture and destinationArrival the passenger's leg.
+public record ScheduleMatch(Long scheduleId, Long routeId, int originStop, int destinationStop,
+                           LocalDateTime departureDate, LocalDateTime arrivalDate,
+                           LocalDateTime originDeparture, LocalDateTime destinationArrival) {
+}
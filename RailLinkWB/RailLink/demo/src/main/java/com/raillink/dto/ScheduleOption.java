@@ -0,0 +1,4 @@
+package com.raillink.dto;
+import java.time.LocalDateTime;
+public record ScheduleOption(Long id, String scheduleName, String trainName, LocalDateTime departureDate) {
+}
@@ -0,0 +1,4 @@
+package com.raillink.dto;
+import java.time.LocalDateTime;
+public record ScheduleTime(Long scheduleId, Long routeId, LocalDateTime departureDate, LocalDateTime arrivalDate) {
+}
@@ -0,0 +1,3 @@
+package com.raillink.dto;
+public record SeatAssignment(Long scheduleId, String ticketClass, String seatNumber) {
+}
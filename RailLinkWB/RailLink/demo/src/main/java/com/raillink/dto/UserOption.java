@@ -0,0 +1,3 @@
+package com.raillink.dto;
+public record UserOption(Long id, String username, String email) {
+}
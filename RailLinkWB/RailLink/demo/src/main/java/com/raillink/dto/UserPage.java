@@ -0,0 +1,9 @@
+package com.raillink.dto;
+import java.util.List;
+import com.raillink.model.User;
+// One keyset page of users ordered by id; pass nextCursor as "after" for the next page.
+public record UserPage(List<User> items, Long nextCursor, int size) {
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
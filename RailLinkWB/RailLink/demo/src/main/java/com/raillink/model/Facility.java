@@ -0,0 +1,88 @@
+package com.raillink.model;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+// Fixed station facility vocabulary. Each constant owns one bit of Station.facilityMask, so
+// constants must only ever be appended, never reordered or removed.
+public enum Facility {
+    WHEELCHAIR_ACCESS("Wheelchair Access", "wheelchair", "accessible", "step free", "ramp"),
+    PARKING("Parking", "car park", "parking lot"),
+    RESTROOMS("Restrooms", "restroom", "toilet", "toilets", "washroom", "washrooms"),
+    WAITING_ROOM("Waiting Room", "waiting area", "lounge"),
+    TICKET_COUNTER("Ticket Counter", "ticket office", "booking office", "tickets"),
+    FOOD_COURT("Food Court", "cafe", "canteen", "restaurant", "food"),
+    WIFI("Wi-Fi", "wifi", "internet"),
+    ATM("ATM", "cash machine"),
+    LUGGAGE_STORAGE("Luggage Storage", "cloak room", "cloakroom", "left luggage"),
+    ELEVATOR("Elevator", "lift", "lifts"),
+    FIRST_AID("First Aid", "medical"),
+    TAXI_STAND("Taxi Stand", "taxi", "tuk tuk");
+    private static final Map<String, Facility> BY_KEY = new HashMap<>();
+    static {
+        for (Facility facility : values()) {
+            BY_KEY.put(key(facility.name()), facility);
+            BY_KEY.put(key(facility.label), facility);
+            for (String alias : facility.aliases) {
+                BY_KEY.put(key(alias), facility);
+            }
+        }
+    }
+    private final String label;
+    private final String[] aliases;
+    Facility(String label, String... aliases) {
+        this.label = label;
+        this.aliases = aliases;
+    }
+    public String getLabel() {
+        return label;
+    }
+    public long bit() {
+        return 1L << ordinal();
+    }
+    public static Optional<Facility> parse(String value) {
+        return value == null ? Optional.empty() : Optional.ofNullable(BY_KEY.get(key(value)));
+    }
+    // Maps a free-form comma-separated facilities string onto the vocabulary; unknown entries are ignored.
+    public static long toMask(String csv) {
+        long mask = 0;
+        if (csv == null || csv.isBlank()) {
+            return mask;
+        }
+        for (String part : csv.split("[,;]")) {
+            Optional<Facility> facility = parse(part);
+            if (facility.isPresent()) {
+                mask |= facility.get().bit();
+            }
+        }
+        return mask;
+    }
+    public static long toMask(Set<Facility> facilities) {
+        long mask = 0;
+        for (Facility facility : facilities) {
+            mask |= facility.bit();
+        }
+        return mask;
+    }
+    public static Set<Facility> fromMask(long mask) {
+        Set<Facility> facilities = EnumSet.noneOf(Facility.class);
+        for (Facility facility : values()) {
+            if ((mask & facility.bit()) != 0) {
+                facilities.add(facility);
+            }
+        }
+        return facilities;
+    }
+    public static String toCsv(long mask) {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (Facility facility : fromMask(mask)) {
+            joiner.add(facility.label);
+        }
+        return joiner.toString();
+    }
+    private static String key(String value) {
+        return value.trim().toLowerCase().replaceAll("[^a-z0-9]", "");
+    }
+}
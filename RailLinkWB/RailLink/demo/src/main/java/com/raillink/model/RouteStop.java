@@ -0,0 +1,54 @@
+package com.raillink.model;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+@Entity
+@Table(name = "route_stops",
+        uniqueConstraints = @UniqueConstraint(name = "uk_route_stops_route_position", columnNames = {"route_id", "position"}),
+        indexes = @Index(name = "idx_route_stops_station", columnList = "station_id, route_id, position"))
+public class RouteStop {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "route_id", nullable = false)
+    private Long routeId;
+    @Column(name = "station_id", nullable = false)
+    private Long stationId;
+    @Column(nullable = false)
+    private int position; // 0-based order along the route
+    public RouteStop() {}
+    public RouteStop(Long routeId, Long stationId, int position) {
+        this.routeId = routeId;
+        this.stationId = stationId;
+        this.position = position;
+    }
+    public Long getId() {
+        return id;
+    }
+    public void setId(Long id) {
+        this.id = id;
+    }
+    public Long getRouteId() {
+        return routeId;
+    }
+    public void setRouteId(Long routeId) {
+        this.routeId = routeId;
+    }
+    public Long getStationId() {
+        return stationId;
+    }
+    public void setStationId(Long stationId) {
+        this.stationId = stationId;
+    }
+    public int getPosition() {
+        return position;
+    }
+    public void setPosition(int position) {
+        this.position = position;
+    }
+}
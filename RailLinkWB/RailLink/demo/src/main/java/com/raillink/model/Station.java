@@ -1,4 +1,7 @@
 package com.raillink.model;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
@@ -8,6 +11,8 @@ import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
 @Entity
 @Table(name = "stations")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Station {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -19,6 +24,8 @@ public class Station {
     private String location;
     @Column(length = 1000)
     private String facilities; // comma-separated amenities
+    @Column(name = "facility_mask", nullable = false)
+    private long facilityMask = 0; // Facility bits derived from facilities
     @Column(nullable = false)
     private boolean archived = false;
     public Station() {}
@@ -50,6 +57,15 @@ public class Station {
     public void setFacilities(String facilities) {
         this.facilities = facilities;
     }
+    public long getFacilityMask() {
+        return facilityMask;
+    }
+    public void setFacilityMask(long facilityMask) {
+        this.facilityMask = facilityMask;
+    }
+    public boolean hasFacilities(long requiredMask) {
+        return (facilityMask & requiredMask) == requiredMask;
+    }
     public boolean isArchived() {
         return archived;
     }
@@ -0,0 +1,12 @@
+package com.raillink.repository;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import com.raillink.model.Announcement;
+@Repository
+public interface AnnouncementQueryRepository extends org.springframework.data.repository.Repository<Announcement, Long> {
+    @Query("select a from Announcement a where a.endDate is null or a.endDate >= :now order by a.startDate desc")
+    List<Announcement> findNotExpired(@Param("now") LocalDateTime now);
+}
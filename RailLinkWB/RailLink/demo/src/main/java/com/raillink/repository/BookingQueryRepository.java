@@ -0,0 +1,89 @@
+package com.raillink.repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import jakarta.persistence.QueryHint;
+import com.raillink.dto.BookingOwner;
+import com.raillink.dto.BookingSummary;
+import com.raillink.dto.ClassOccupancy;
+import com.raillink.dto.SeatAssignment;
+import com.raillink.model.Booking;
+// Booking queries for admin views and seat inventory rebuilds, plus the bulk status change
+// used when a whole schedule is cancelled.
+@Repository
+public interface BookingQueryRepository extends org.springframework.data.repository.Repository<Booking, Long> {
+    String STREAMING_FETCH_SIZE = "-2147483648";
+    long count();
+    @Query("select b from Booking b join fetch b.user join fetch b.schedule s join fetch s.train join fetch s.route order by b.id desc")
+    List<Booking> findMostRecent(Pageable pageable);
+    @Query("select new com.raillink.dto.BookingSummary(b.id, b.bookingDate, b.status, b.seatNumber, b.ticketClass, "
+            + "u.id, u.username, u.email, s.id, s.scheduleName, s.departureDate, t.name) "
+            + "from Booking b join b.user u join b.schedule s join s.train t "
+            + "where (:before is null or b.id < :before) "
+            + "order by b.id desc")
+    List<BookingSummary> findSummariesBefore(@Param("before") Long before, Pageable pageable);
+    @Query("select new com.raillink.dto.BookingSummary(b.id, b.bookingDate, b.status, b.seatNumber, b.ticketClass, "
+            + "u.id, u.username, u.email, s.id, s.scheduleName, s.departureDate, t.name) "
+            + "from Booking b join b.user u join b.schedule s join s.train t "
+            + "where (:before is null or b.id < :before) "
+            + "and (lower(u.username) like :pattern or lower(u.email) like :pattern) "
+            + "order by b.id desc")
+    List<BookingSummary> findSummariesByPassengerBefore(@Param("pattern") String pattern,
+                                                        @Param("before") Long before,
+                                                        Pageable pageable);
+    @Query("select new com.raillink.dto.BookingSummary(b.id, b.bookingDate, b.status, b.seatNumber, b.ticketClass, "
+            + "u.id, u.username, u.email, s.id, s.scheduleName, s.departureDate, t.name) "
+            + "from Booking b join b.user u join b.schedule s join s.train t "
+            + "where b.id = :id")
+    List<BookingSummary> findSummaryById(@Param("id") Long id);
+    @Query("select new com.raillink.dto.SeatAssignment(s.id, b.ticketClass, b.seatNumber) "
+            + "from Booking b join b.schedule s "
+            + "where s.id = :scheduleId and b.status <> 'CANCELLED'")
+    List<SeatAssignment> findSeatAssignments(@Param("scheduleId") Long scheduleId);
+    @Query("select new com.raillink.dto.SeatAssignment(s.id, b.ticketClass, b.seatNumber) "
+            + "from Booking b join b.schedule s "
+            + "where s.departureDate >= :from and b.status <> 'CANCELLED'")
+    List<SeatAssignment> findUpcomingSeatAssignments(@Param("from") LocalDateTime from);
+    @Query("select new com.raillink.dto.ClassOccupancy(s.id, b.ticketClass, count(b)) "
+            + "from Booking b join b.schedule s "
+            + "where s.id = :scheduleId and b.status <> 'CANCELLED' "
+            + "group by s.id, b.ticketClass")
+    List<ClassOccupancy> countActiveByClass(@Param("scheduleId") Long scheduleId);
+    @Query("select new com.raillink.dto.ClassOccupancy(s.id, b.ticketClass, count(b)) "
+            + "from Booking b join b.schedule s "
+            + "where s.departureDate >= :from and b.status <> 'CANCELLED' "
+            + "group by s.id, b.ticketClass")
+    List<ClassOccupancy> countActiveByClassDepartingFrom(@Param("from") LocalDateTime from);
+    // Bookings on the given connecting schedules held by passengers who are also booked on scheduleId.
+    @Query("select distinct new com.raillink.dto.BookingOwner(b2.id, u.username) "
+            + "from Booking b1 join Booking b2 on b2.user = b1.user join b2.user u "
+            + "where b1.schedule.id = :scheduleId and b2.schedule.id in :connecting "
+            + "and b1.status <> 'CANCELLED' and b2.status <> 'CANCELLED'")
+    List<BookingOwner> findConnectingBookings(@Param("scheduleId") Long scheduleId, @Param("connecting") Collection<Long> connecting);
+    // Bulk update: Hibernate listeners do not see it, so callers refresh the seat inventory and
+    // occupancy of the schedule themselves.
+    @Modifying
+    @Query("update Booking b set b.status = 'CANCELLED' where b.id in :ids")
+    int cancelAll(@Param("ids") Collection<Long> ids);
+    // Must be consumed inside a transaction and closed. Rows are DTOs, so nothing accumulates in
+    // the persistence context. Integer.MIN_VALUE is Connector/J's row-by-row streaming mode; any
+    // other fetch size is ignored without useCursorFetch and the whole result is buffered.
+    // Left joins keep bookings whose user, schedule or train is gone in the export.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAMING_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("select new com.raillink.dto.BookingSummary(b.id, b.bookingDate, b.status, b.seatNumber, b.ticketClass, "
+            + "u.id, u.username, u.email, s.id, s.scheduleName, s.departureDate, t.name) "
+            + "from Booking b left join b.user u left join b.schedule s left join s.train t "
+            + "where (:from is null or b.bookingDate >= :from) and (:to is null or b.bookingDate < :to) "
+            + "order by b.id")
+    Stream<BookingSummary> streamSummaries(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,41 @@
+package com.raillink.repository;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import com.raillink.dto.ActiveBooking;
+import com.raillink.dto.NewRefund;
+// Refund rows written in bulk when a whole schedule is cancelled. Refunds have no entity in
+// this module, so both statements are plain JDBC; they join the caller's transaction.
+@Repository
+public class RefundJdbcRepository {
+    private static final String LOCK_SQL = "SELECT b.id, b.ticket_class, "
+            + "EXISTS (SELECT 1 FROM refunds r WHERE r.booking_id = b.id) AS refunded, "
+            + "(SELECT u.username FROM users u WHERE u.id = b.user_id) AS username "
+            + "FROM bookings b WHERE b.schedule_id = ? AND b.status <> 'CANCELLED' AND b.id > ? "
+            + "ORDER BY b.id LIMIT ? FOR UPDATE";
+    private static final String INSERT_SQL = "INSERT INTO refunds (booking_id, amount, reason, status, requested_at) "
+            + "VALUES (?, ?, ?, 'PENDING', ?)";
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    // Next page of the schedule's active bookings after the given id, locked until commit and
+    // flagged when a refund already exists, so a concurrent cancel cannot refund one twice.
+    public List<ActiveBooking> lockActiveBookings(long scheduleId, long after, int limit) {
+        return jdbcTemplate.query(LOCK_SQL, (rs, i) -> new ActiveBooking(rs.getLong(1), rs.getString(2), rs.getBoolean(3), rs.getString(4)),
+                scheduleId, after, limit);
+    }
+    public void insertPending(List<NewRefund> refunds, String reason, LocalDateTime requestedAt) {
+        if (refunds.isEmpty()) {
+            return;
+        }
+        Timestamp at = Timestamp.valueOf(requestedAt);
+        jdbcTemplate.batchUpdate(INSERT_SQL, refunds, refunds.size(), (ps, refund) -> {
+            ps.setLong(1, refund.bookingId());
+            ps.setBigDecimal(2, refund.amount());
+            ps.setString(3, reason);
+            ps.setTimestamp(4, at);
+        });
+    }
+}
@@ -0,0 +1,18 @@
+package com.raillink.repository;
+import java.util.List;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+import jakarta.persistence.QueryHint;
+import com.raillink.dto.RoutePath;
+import com.raillink.model.Route;
+@Repository
+public interface RouteQueryRepository extends org.springframework.data.repository.Repository<Route, Long> {
+    @Query("select new com.raillink.dto.RoutePath(r.id, r.path) from Route r")
+    List<RoutePath> findAllPaths();
+    // Served from the query cache; any Hibernate write to routes invalidates it.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("select r from Route r order by r.id")
+    List<Route> findAllCached();
+}
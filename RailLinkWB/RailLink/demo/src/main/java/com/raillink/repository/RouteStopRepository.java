@@ -0,0 +1,22 @@
+package com.raillink.repository;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import com.raillink.model.RouteStop;
+@Repository
+public interface RouteStopRepository extends JpaRepository<RouteStop, Long> {
+    List<RouteStop> findByRouteIdOrderByPositionAsc(Long routeId);
+    @Query("select rs from RouteStop rs order by rs.routeId, rs.position")
+    List<RouteStop> findAllOrdered();
+    @Query("select distinct rs.routeId from RouteStop rs")
+    List<Long> findRouteIdsWithStops();
+    // Served by idx_route_stops_station.
+    @Query("select distinct rs.routeId from RouteStop rs where rs.stationId = :stationId")
+    List<Long> findRouteIdsServing(@Param("stationId") Long stationId);
+    @Modifying
+    @Query("delete from RouteStop rs where rs.routeId = :routeId")
+    int deleteByRouteId(@Param("routeId") Long routeId);
+}
@@ -0,0 +1,57 @@
+package com.raillink.repository;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import com.raillink.dto.NewSchedule;
+// Bulk writes to the schedules table that JPA cannot batch. Schedule uses IDENTITY ids, which
+// stops Hibernate from batching inserts; with rewriteBatchedStatements on the MySQL URL each
+// batch here becomes one multi-row INSERT. Column names follow the Schedule mapping. These
+// writes bypass Hibernate: callers evict the Schedule second-level cache entries after commit.
+@Repository
+public class ScheduleJdbcRepository {
+    public static final int BATCH_SIZE = 500;
+    private static final String INSERT_SQL = "INSERT INTO schedules "
+            + "(train_id, route_id, schedule_name, status, delay_minutes, pricing_json, departure_date, arrival_date) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String STATUS_SQL = "UPDATE schedules SET status = ? WHERE id = ?";
+    private static final String DELAY_SQL = "UPDATE schedules SET delay_minutes = ? WHERE id = ?";
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    // Joins the caller's transaction; progress is advanced after every batch.
+    public void insertBatches(List<NewSchedule> rows, AtomicInteger progress) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            List<NewSchedule> chunk = rows.subList(from, Math.min(from + BATCH_SIZE, rows.size()));
+            jdbcTemplate.batchUpdate(INSERT_SQL, chunk, chunk.size(), (ps, row) -> {
+                ps.setLong(1, row.trainId());
+                ps.setLong(2, row.routeId());
+                ps.setString(3, row.scheduleName());
+                ps.setString(4, row.status());
+                if (row.delayMinutes() != null) {
+                    ps.setInt(5, row.delayMinutes());
+                } else {
+                    ps.setNull(5, Types.INTEGER);
+                }
+                ps.setString(6, row.pricingJson());
+                ps.setTimestamp(7, Timestamp.valueOf(row.departureDate()));
+                ps.setTimestamp(8, Timestamp.valueOf(row.arrivalDate()));
+            });
+            progress.addAndGet(chunk.size());
+        }
+    }
+    public int updateStatus(long scheduleId, String status) {
+        return jdbcTemplate.update(STATUS_SQL, status, scheduleId);
+    }
+    // Delay minutes by schedule id, in one batch.
+    public void updateDelays(Map<Long, Integer> delays) {
+        List<Map.Entry<Long, Integer>> rows = List.copyOf(delays.entrySet());
+        jdbcTemplate.batchUpdate(DELAY_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setInt(1, row.getValue());
+            ps.setLong(2, row.getKey());
+        });
+    }
+}
@@ -0,0 +1,76 @@
+package com.raillink.repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import jakarta.persistence.QueryHint;
+import com.raillink.dto.ClassCapacity;
+import com.raillink.dto.ScheduleExportRow;
+import com.raillink.dto.ScheduleOption;
+import com.raillink.dto.ScheduleTime;
+import com.raillink.model.Schedule;
+@Repository
+public interface ScheduleQueryRepository extends org.springframework.data.repository.Repository<Schedule, Long> {
+    @Query("select new com.raillink.dto.ScheduleOption(s.id, s.scheduleName, t.name, s.departureDate) "
+            + "from Schedule s join s.train t "
+            + "where s.departureDate >= :from "
+            + "and (:prefix is null or s.scheduleName like :prefix or t.name like :prefix) "
+            + "order by s.departureDate")
+    List<ScheduleOption> findUpcomingOptions(@Param("from") LocalDateTime from,
+                                             @Param("prefix") String prefix,
+                                             Pageable pageable);
+    @Query("select new com.raillink.dto.ClassCapacity(s.id, key(c), value(c), s.departureDate) "
+            + "from Schedule s join s.train t join t.classes c "
+            + "where s.id = :scheduleId")
+    List<ClassCapacity> findClassCapacities(@Param("scheduleId") Long scheduleId);
+    @Query("select new com.raillink.dto.ClassCapacity(s.id, key(c), value(c), s.departureDate) "
+            + "from Schedule s join s.train t join t.classes c "
+            + "where s.departureDate >= :from")
+    List<ClassCapacity> findUpcomingClassCapacities(@Param("from") LocalDateTime from);
+    // Seat layouts for the inventory: cancelled schedules have none.
+    @Query("select new com.raillink.dto.ClassCapacity(s.id, key(c), value(c), s.departureDate) "
+            + "from Schedule s join s.train t join t.classes c "
+            + "where s.id = :scheduleId and (s.status is null or s.status <> 'CANCELLED')")
+    List<ClassCapacity> findBookableClassCapacities(@Param("scheduleId") Long scheduleId);
+    @Query("select new com.raillink.dto.ClassCapacity(s.id, key(c), value(c), s.departureDate) "
+            + "from Schedule s join s.train t join t.classes c "
+            + "where s.departureDate >= :from and (s.status is null or s.status <> 'CANCELLED')")
+    List<ClassCapacity> findUpcomingBookableClassCapacities(@Param("from") LocalDateTime from);
+    @Query("select s.id from Schedule s join s.train t join t.classes c "
+            + "where s.id in :scheduleIds and key(c) = :ticketClass and value(c) > 0")
+    List<Long> findIdsOfferingClass(@Param("scheduleIds") Collection<Long> scheduleIds,
+                                    @Param("ticketClass") String ticketClass);
+    // Schedules that still run and leave at or after from, for search and journey planning.
+    @Query("select new com.raillink.dto.ScheduleTime(s.id, r.id, s.departureDate, s.arrivalDate) "
+            + "from Schedule s join s.route r where s.departureDate >= :from and (s.status is null or s.status <> 'CANCELLED')")
+    List<ScheduleTime> findRunningTimes(@Param("from") LocalDateTime from);
+    @Query("select new com.raillink.dto.ScheduleTime(s.id, r.id, s.departureDate, s.arrivalDate) "
+            + "from Schedule s join s.route r where r.id = :routeId and s.departureDate >= :from "
+            + "and (s.status is null or s.status <> 'CANCELLED')")
+    List<ScheduleTime> findRunningTimesByRoute(@Param("routeId") Long routeId, @Param("from") LocalDateTime from);
+    @Query("select new com.raillink.dto.ScheduleTime(s.id, r.id, s.departureDate, s.arrivalDate) "
+            + "from Schedule s join s.route r where s.id = :id")
+    Optional<ScheduleTime> findTimeById(@Param("id") Long id);
+    @Query("select s.pricingJson from Schedule s where s.id = :id")
+    Optional<String> findPricingJson(@Param("id") Long id);
+    @Query("select new com.raillink.dto.ScheduleTime(s.id, r.id, s.departureDate, s.arrivalDate) "
+            + "from Schedule s join s.route r where s.departureDate >= :from")
+    List<ScheduleTime> findTimesDepartingFrom(@Param("from") LocalDateTime from);
+    // Same contract as BookingQueryRepository.streamSummaries: consume inside a transaction and close.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = BookingQueryRepository.STREAMING_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("select new com.raillink.dto.ScheduleExportRow(s.id, s.scheduleName, s.status, s.delayMinutes, "
+            + "s.departureDate, s.arrivalDate, t.id, t.name, r.id, r.path, s.pricingJson) "
+            + "from Schedule s left join s.train t left join s.route r "
+            + "where (:from is null or s.departureDate >= :from) and (:to is null or s.departureDate < :to) "
+            + "order by s.id")
+    Stream<ScheduleExportRow> streamExportRows(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
@@ -1,4 +1,6 @@
 package com.raillink.repository;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
@@ -6,4 +8,6 @@ import com.raillink.model.Station;
 @Repository
 public interface StationRepository extends JpaRepository<Station, Long> {
     Optional<Station> findByName(String name);
+    List<Station> findByArchivedFalseOrderByIdAsc();
+    List<Station> findByNameIn(Collection<String> names);
 } 
\ No newline at end of file
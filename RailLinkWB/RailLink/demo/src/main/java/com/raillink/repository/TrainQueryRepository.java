@@ -0,0 +1,15 @@
+package com.raillink.repository;
+import java.util.List;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+import jakarta.persistence.QueryHint;
+import com.raillink.model.Train;
+@Repository
+public interface TrainQueryRepository extends org.springframework.data.repository.Repository<Train, Long> {
+    // Served from the query cache; any Hibernate write to trains invalidates it.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("select t from Train t order by t.id")
+    List<Train> findAllCached();
+}
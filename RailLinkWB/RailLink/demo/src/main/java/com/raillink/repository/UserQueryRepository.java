@@ -0,0 +1,32 @@
+package com.raillink.repository;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import com.raillink.dto.UserOption;
+import com.raillink.model.User;
+@Repository
+public interface UserQueryRepository extends org.springframework.data.repository.Repository<User, Long> {
+    @Query("select new com.raillink.dto.UserOption(u.id, u.username, u.email) from User u "
+            + "where (:prefix is null or u.username like :prefix or u.email like :prefix) "
+            + "order by u.username")
+    List<UserOption> findOptions(@Param("prefix") String prefix, Pageable pageable);
+    @Query("select u.id from User u where u.username = :username")
+    Optional<Long> findIdByUsername(@Param("username") String username);
+    @Query("select u from User u where (:after is null or u.id > :after) order by u.id")
+    List<User> findPageAfter(@Param("after") Long after, Pageable pageable);
+    @Query("select u from User u where (:after is null or u.id > :after) "
+            + "and (lower(u.username) like :pattern or lower(u.email) like :pattern) order by u.id")
+    List<User> searchByPatternAfter(@Param("pattern") String pattern, @Param("after") Long after, Pageable pageable);
+    // Requires the ngram FULLTEXT index from db/users-fulltext.sql; the LIKE re-check keeps
+    // results exact when ngram matching is looser than a substring test.
+    @Query(value = "select * from users where match(username, email) against (:phrase in boolean mode) "
+            + "and (lower(username) like :pattern or lower(email) like :pattern) "
+            + "and id > :after order by id limit :limit", nativeQuery = true)
+    List<User> searchFullTextAfter(@Param("phrase") String phrase,
+                                   @Param("pattern") String pattern,
+                                   @Param("after") long after,
+                                   @Param("limit") int limit);
+}
@@ -0,0 +1,100 @@
+package com.raillink.service;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import io.micrometer.core.annotation.Timed;
+import com.raillink.config.MetricsConfig;
+import com.raillink.model.Announcement;
+import com.raillink.repository.AnnouncementQueryRepository;
+// Keeps non-expired announcements in memory together with the next instant at which the
+// active set can change (the earliest pending start or active end). Until that instant the
+// cached active list is returned as-is; edits through the admin pages call refresh().
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class ActiveAnnouncementService {
+    @Autowired
+    private AnnouncementQueryRepository announcementQueryRepository;
+    // Guards every write to state: loads, refreshes and window advances.
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile State state;
+    private record State(List<Announcement> window, List<Announcement> active, LocalDateTime validUntil) {}
+    public List<Announcement> findActive() {
+        return findActive(LocalDateTime.now());
+    }
+    public List<Announcement> findActive(LocalDateTime now) {
+        State current = state;
+        if (current == null) {
+            current = loadIfAbsent(now);
+        } else if (current.validUntil() != null && !now.isBefore(current.validUntil())) {
+            current = advance(now);
+        }
+        return current.active();
+    }
+    public void refresh() {
+        lock.lock();
+        try {
+            load(LocalDateTime.now());
+        } finally {
+            lock.unlock();
+        }
+    }
+    private State loadIfAbsent(LocalDateTime now) {
+        lock.lock();
+        try {
+            State current = state;
+            return current != null ? current : load(now);
+        } finally {
+            lock.unlock();
+        }
+    }
+    // Callers hold the lock.
+    private State load(LocalDateTime now) {
+        State loaded = recompute(announcementQueryRepository.findNotExpired(now), now);
+        state = loaded;
+        return loaded;
+    }
+    // Under the same lock as load(), so a window recomputed from an older state never
+    // overwrites a refresh.
+    private State advance(LocalDateTime now) {
+        lock.lock();
+        try {
+            State current = state;
+            if (current.validUntil() != null && !now.isBefore(current.validUntil())) {
+                current = recompute(current.window(), now);
+                state = current;
+            }
+            return current;
+        } finally {
+            lock.unlock();
+        }
+    }
+    private static State recompute(List<Announcement> candidates, LocalDateTime now) {
+        List<Announcement> window = new ArrayList<>(candidates.size());
+        List<Announcement> active = new ArrayList<>();
+        LocalDateTime validUntil = null;
+        for (Announcement a : candidates) {
+            LocalDateTime start = a.getStartDate();
+            LocalDateTime end = a.getEndDate();
+            if (end != null && now.isAfter(end)) {
+                continue;
+            }
+            window.add(a);
+            if (start != null && now.isBefore(start)) {
+                validUntil = earliest(validUntil, start);
+            } else {
+                active.add(a);
+                if (end != null) {
+                    validUntil = earliest(validUntil, end.plusNanos(1));
+                }
+            }
+        }
+        return new State(Collections.unmodifiableList(window), Collections.unmodifiableList(active), validUntil);
+    }
+    private static LocalDateTime earliest(LocalDateTime a, LocalDateTime b) {
+        return a == null || b.isBefore(a) ? b : a;
+    }
+}
@@ -0,0 +1,36 @@
+package com.raillink.service;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import io.micrometer.core.annotation.Timed;
+import com.raillink.config.MetricsConfig;
+import com.raillink.dto.ScheduleOption;
+import com.raillink.dto.UserOption;
+import com.raillink.repository.ScheduleQueryRepository;
+import com.raillink.repository.UserQueryRepository;
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+@Transactional(readOnly = true)
+public class AdminLookupService {
+    private static final int MAX_RESULTS = 50;
+    @Autowired
+    private UserQueryRepository userQueryRepository;
+    @Autowired
+    private ScheduleQueryRepository scheduleQueryRepository;
+    public List<UserOption> findUsers(String query, int limit) {
+        return userQueryRepository.findOptions(toPrefix(query), PageRequest.of(0, clamp(limit)));
+    }
+    public List<ScheduleOption> findUpcomingSchedules(String query, int limit) {
+        return scheduleQueryRepository.findUpcomingOptions(LocalDateTime.now().minusDays(1), toPrefix(query), PageRequest.of(0, clamp(limit)));
+    }
+    private String toPrefix(String query) {
+        // Prefix matches keep the username/name indexes usable.
+        return query == null || query.isBlank() ? null : query.trim() + "%";
+    }
+    private int clamp(int limit) {
+        return limit <= 0 ? 20 : Math.min(limit, MAX_RESULTS);
+    }
+}
@@ -0,0 +1,212 @@
+package com.raillink.service;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+// Admission for booking writes under flash crowds. Every request first spends a token from its
+// user's bucket (rejected at once when empty), then from the global bucket sized to what the
+// database can absorb. When the global bucket is dry, or anyone is already waiting, the request
+// joins a bounded FIFO for its schedule and gets a ticket and position back; dispatch() hands
+// freed tokens to the queue heads round-robin, so one hot train cannot starve the others.
+// A full queue is rejected without waiting. Nothing here blocks a request thread.
+public final class AdmissionControl {
+    public enum Outcome { ADMITTED, QUEUED, REJECTED_USER_RATE, REJECTED_QUEUE_FULL }
+    public record Decision(Outcome outcome, long position, String ticket, long retryAfterMillis) {
+        // Retry-After header value: whole seconds, rounded up, at least 1.
+        public long retryAfterSeconds() {
+            return Math.max(1, (retryAfterMillis + 999) / 1000);
+        }
+    }
+    private static final long USER_IDLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private final TokenBucket global;
+    private final double userRate;
+    private final int userBurst;
+    private final int queueCapacity;
+    private final long ticketTtlNanos;
+    private final long maxRetryAfterMillis;
+    private final Map<String, TokenBucket> users = new ConcurrentHashMap<>();
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+    private final Map<String, ScheduleQueue> queues = new ConcurrentHashMap<>();
+    // Keys of non-empty queues in round-robin order; guarded by lock together with the queues.
+    private final ArrayDeque<String> active = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile int activeQueues;
+    private final AtomicInteger queued = new AtomicInteger();
+    public AdmissionControl(double globalRate, int globalBurst, double userRate, int userBurst,
+                            int queueCapacity, long ticketTtlMillis) {
+        this.global = new TokenBucket(globalRate, globalBurst, System.nanoTime());
+        this.userRate = userRate;
+        this.userBurst = userBurst;
+        this.queueCapacity = queueCapacity;
+        this.ticketTtlNanos = TimeUnit.MILLISECONDS.toNanos(ticketTtlMillis);
+        this.maxRetryAfterMillis = Math.max(50, ticketTtlMillis / 3);
+    }
+    // queueKey groups requests for the same schedule; ticket is the one returned by an earlier QUEUED decision.
+    public Decision admit(String user, String queueKey, String ticket) {
+        long now = System.nanoTime();
+        if (ticket != null) {
+            Ticket waiting = tickets.get(ticket);
+            if (waiting != null && waiting.queueKey.equals(queueKey)) {
+                if (waiting.admittedUntil != 0) {
+                    tickets.remove(ticket);
+                    if (now - waiting.admittedUntil <= 0) {
+                        return new Decision(Outcome.ADMITTED, 0, null, 0);
+                    }
+                } else {
+                    waiting.lastSeen = now;
+                    long position = position(waiting);
+                    return new Decision(Outcome.QUEUED, position, ticket, retryAfterMillis(position));
+                }
+            }
+        }
+        TokenBucket bucket = users.computeIfAbsent(user, u -> new TokenBucket(userRate, userBurst, now));
+        if (!bucket.tryAcquire(now)) {
+            return new Decision(Outcome.REJECTED_USER_RATE, 0, null, bucket.millisUntilToken(now));
+        }
+        lock.lock();
+        try {
+            if (queued.get() == 0 && global.tryAcquire(now)) {
+                return new Decision(Outcome.ADMITTED, 0, null, 0);
+            }
+            ScheduleQueue queue = queues.computeIfAbsent(queueKey, k -> new ScheduleQueue());
+            if (queue.waiting.size() >= queueCapacity) {
+                return new Decision(Outcome.REJECTED_QUEUE_FULL, 0, null, retryAfterMillis(queueCapacity));
+            }
+            Ticket created = new Ticket(UUID.randomUUID().toString(), queueKey, queue, ++queue.lastSeq, now);
+            if (queue.waiting.isEmpty()) {
+                active.addLast(queueKey);
+                activeQueues = active.size();
+            }
+            queue.waiting.addLast(created);
+            tickets.put(created.id, created);
+            queued.incrementAndGet();
+            long position = position(created);
+            return new Decision(Outcome.QUEUED, position, created.id, retryAfterMillis(position));
+        } finally {
+            lock.unlock();
+        }
+    }
+    // Grants available global tokens to queue heads, one queue at a time in turn. Tickets whose
+    // client stopped polling are skipped.
+    public void dispatch() {
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            while (!active.isEmpty()) {
+                String key = active.pollFirst();
+                ScheduleQueue queue = queues.get(key);
+                Ticket head = queue.nextLive(now);
+                if (head == null) {
+                    continue;
+                }
+                if (!global.tryAcquire(now)) {
+                    queue.waiting.addFirst(head);
+                    queued.incrementAndGet();
+                    active.addFirst(key);
+                    break;
+                }
+                head.admittedUntil = now + ticketTtlNanos;
+                queue.dispatchedSeq = head.seq;
+                if (!queue.waiting.isEmpty()) {
+                    active.addLast(key);
+                }
+            }
+            activeQueues = active.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+    public void evictIdle() {
+        long now = System.nanoTime();
+        users.values().removeIf(bucket -> bucket.idleLongerThan(now, USER_IDLE_NANOS));
+        tickets.values().removeIf(ticket -> ticket.admittedUntil != 0 && now - ticket.admittedUntil > 0);
+        lock.lock();
+        try {
+            queues.values().removeIf(queue -> queue.waiting.isEmpty());
+        } finally {
+            lock.unlock();
+        }
+    }
+    public int queuedCount() {
+        return queued.get();
+    }
+    private static long position(Ticket ticket) {
+        return Math.max(1, ticket.seq - ticket.queue.dispatchedSeq);
+    }
+    // Each active queue gets an equal share of the global rate. Capped at a third of the ticket
+    // TTL: a client that waits the full Retry-After, rounded up to whole seconds, still polls
+    // before its ticket is dropped as abandoned or its admission lapses.
+    private long retryAfterMillis(long position) {
+        int sharing = Math.max(1, activeQueues);
+        return Math.min(maxRetryAfterMillis, Math.max(50, (long) (position * sharing * 1000 / global.rate)));
+    }
+    private final class ScheduleQueue {
+        private final ArrayDeque<Ticket> waiting = new ArrayDeque<>();
+        private long lastSeq;
+        private volatile long dispatchedSeq;
+        private Ticket nextLive(long now) {
+            Ticket ticket;
+            while ((ticket = waiting.pollFirst()) != null) {
+                queued.decrementAndGet();
+                if (now - ticket.lastSeen <= ticketTtlNanos) {
+                    return ticket;
+                }
+                tickets.remove(ticket.id);
+                dispatchedSeq = ticket.seq;
+            }
+            return null;
+        }
+    }
+    private static final class Ticket {
+        private final String id;
+        private final String queueKey;
+        private final ScheduleQueue queue;
+        private final long seq;
+        private volatile long lastSeen;
+        private volatile long admittedUntil;
+        private Ticket(String id, String queueKey, ScheduleQueue queue, long seq, long now) {
+            this.id = id;
+            this.queueKey = queueKey;
+            this.queue = queue;
+            this.seq = seq;
+            this.lastSeen = now;
+        }
+    }
+    static final class TokenBucket {
+        private final double rate;
+        private final double capacity;
+        private double tokens;
+        private long last;
+        TokenBucket(double ratePerSecond, int burst, long now) {
+            this.rate = ratePerSecond;
+            this.capacity = Math.max(1, burst);
+            this.tokens = this.capacity;
+            this.last = now;
+        }
+        synchronized boolean tryAcquire(long now) {
+            refill(now);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return true;
+            }
+            return false;
+        }
+        synchronized long millisUntilToken(long now) {
+            refill(now);
+            return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) * 1000 / rate);
+        }
+        synchronized boolean idleLongerThan(long now, long nanos) {
+            return now - last > nanos;
+        }
+        private void refill(long now) {
+            long elapsed = now - last;
+            if (elapsed > 0) {
+                tokens = Math.min(capacity, tokens + elapsed * rate / 1e9);
+                last = now;
+            }
+        }
+    }
+}
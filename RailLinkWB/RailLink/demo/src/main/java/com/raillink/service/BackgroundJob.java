@@ -0,0 +1,45 @@
+package com.raillink.service;
+import java.time.Instant;
+import java.util.UUID;
+// State every background job reports while it is polled: QUEUED, RUNNING, then COMPLETED or
+// FAILED (jobs may pass through their own states in between). Subclasses add their counters.
+public abstract class BackgroundJob {
+    private final String id = UUID.randomUUID().toString();
+    private volatile String state = "QUEUED";
+    private volatile String error;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    public String getId() {
+        return id;
+    }
+    public String getState() {
+        return state;
+    }
+    public String getError() {
+        return error;
+    }
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+    void start() {
+        startedAt = Instant.now();
+        state = "RUNNING";
+    }
+    void advance(String state) {
+        this.state = state;
+    }
+    void complete() {
+        finish("COMPLETED", null);
+    }
+    void fail(String error) {
+        finish("FAILED", error);
+    }
+    private void finish(String state, String error) {
+        this.error = error;
+        this.state = state;
+        finishedAt = Instant.now();
+    }
+}
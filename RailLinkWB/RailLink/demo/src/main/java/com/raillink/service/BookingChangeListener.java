@@ -0,0 +1,174 @@
+package com.raillink.service;
+import java.util.Arrays;
+import java.util.Objects;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PreInsertEvent;
+import org.hibernate.event.spi.PreInsertEventListener;
+import org.hibernate.event.spi.PreUpdateEvent;
+import org.hibernate.event.spi.PreUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import com.raillink.model.Booking;
+import com.raillink.model.Schedule;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+// Applies every committed Booking insert, update and delete to the seat inventory and the
+// occupancy counters, whichever code path wrote it. Before a booking row is written its seat is
+// held in the inventory, so a seat another booking holds fails the transaction on every path,
+// including BookingService's passenger flows that never call SeatInventoryService themselves.
+// After the commit the seat stops being pending, and freed seats are released.
+// Bulk JDBC writes bypass Hibernate and evict or refresh the schedule themselves.
+@Component
+public class BookingChangeListener implements PreInsertEventListener, PreUpdateEventListener,
+        PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+    private static final Logger log = LoggerFactory.getLogger(BookingChangeListener.class);
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+    @Autowired
+    private OccupancyStore occupancyStore;
+    private record BookingState(Long scheduleId, String ticketClass, String seatNumber, boolean active) {
+        private boolean sameSeat(BookingState other) {
+            return sameClass(other) && Objects.equals(seatNumber, other.seatNumber);
+        }
+        private boolean sameClass(BookingState other) {
+            return Objects.equals(scheduleId, other.scheduleId) && Objects.equals(ticketClass, other.ticketClass);
+        }
+    }
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.PRE_INSERT, this);
+        registry.appendListeners(EventType.PRE_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return Booking.class.isAssignableFrom(persister.getMappedClass());
+    }
+    @Override
+    public boolean onPreInsert(PreInsertEvent event) {
+        if (event.getEntity() instanceof Booking) {
+            BookingState created = state(event.getPersister(), event.getState());
+            if (created.active()) {
+                hold(created);
+            }
+        }
+        return false;
+    }
+    @Override
+    public boolean onPreUpdate(PreUpdateEvent event) {
+        if (event.getEntity() instanceof Booking && event.getOldState() != null) {
+            BookingState before = state(event.getPersister(), event.getOldState());
+            BookingState after = state(event.getPersister(), event.getState());
+            if (after.active() && (!before.active() || !before.sameSeat(after))) {
+                hold(after);
+            }
+        }
+        return false;
+    }
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (!(event.getEntity() instanceof Booking)) {
+            return;
+        }
+        BookingState created = state(event.getPersister(), event.getState());
+        if (created.active()) {
+            claim(event.getId(), created);
+            occupancyStore.bookingCreated(created.scheduleId(), created.ticketClass());
+        }
+    }
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Booking)) {
+            return;
+        }
+        BookingState after = state(event.getPersister(), event.getState());
+        if (event.getOldState() == null) {
+            // Without the previous state a release could free a seat another booking now holds.
+            log.debug("Booking {} updated without its loaded state; seat inventory left as is", event.getId());
+            return;
+        }
+        BookingState before = state(event.getPersister(), event.getOldState());
+        boolean moved = !before.sameSeat(after);
+        if (before.active() && (!after.active() || moved)) {
+            seatInventoryService.release(before.scheduleId(), before.ticketClass(), before.seatNumber());
+        }
+        if (after.active() && (!before.active() || moved)) {
+            claim(event.getId(), after);
+        }
+        if (before.active() != after.active() || (after.active() && !before.sameClass(after))) {
+            occupancyStore.bookingChanged(before.scheduleId(), before.ticketClass(), before.active(),
+                    after.scheduleId(), after.ticketClass(), after.active());
+        }
+    }
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (!(event.getEntity() instanceof Booking)) {
+            return;
+        }
+        BookingState deleted = state(event.getPersister(), event.getDeletedState());
+        if (deleted.active()) {
+            seatInventoryService.release(deleted.scheduleId(), deleted.ticketClass(), deleted.seatNumber());
+            occupancyStore.bookingCancelled(deleted.scheduleId(), deleted.ticketClass());
+        }
+    }
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+    // A seat taken here is given back if the transaction does not commit.
+    private void hold(BookingState state) {
+        SeatInventoryService.Seat seat = seatInventoryService.hold(state.scheduleId(), state.ticketClass(), state.seatNumber());
+        if (seat != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        seatInventoryService.release(state.scheduleId(), seat.ticketClass(), seat.seatNumber());
+                    }
+                }
+            });
+        }
+    }
+    private void claim(Object bookingId, BookingState state) {
+        if (!seatInventoryService.claim(state.scheduleId(), state.ticketClass(), state.seatNumber())) {
+            log.warn("Booking {} was committed on seat {} ({}) of schedule {}, which another booking holds",
+                    bookingId, state.seatNumber(), state.ticketClass(), state.scheduleId());
+        }
+    }
+    private static BookingState state(EntityPersister persister, Object[] values) {
+        String[] names = persister.getPropertyNames();
+        Object schedule = value(names, values, "schedule");
+        Object status = value(names, values, "status");
+        return new BookingState(schedule instanceof Schedule s ? s.getId() : null,
+                (String) value(names, values, "ticketClass"), (String) value(names, values, "seatNumber"),
+                !"CANCELLED".equals(status != null ? status.toString() : null));
+    }
+    private static Object value(String[] names, Object[] values, String name) {
+        int index = Arrays.asList(names).indexOf(name);
+        return index >= 0 && values != null ? values[index] : null;
+    }
+}
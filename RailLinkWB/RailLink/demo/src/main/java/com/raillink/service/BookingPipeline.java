@@ -0,0 +1,164 @@
+package com.raillink.service;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import com.raillink.model.Booking;
+import com.raillink.model.Schedule;
+import com.raillink.model.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+// Booking writes sequenced per schedule. A schedule always hashes to the same partition, and
+// each partition has a single writer thread, so seats for one schedule are assigned in arrival
+// order from SeatInventoryService's bitmaps with no row locks or re-checks. The writer drains
+// whatever has queued up (up to MAX_BATCH), assigns seats, and creates the whole group through
+// BookingService in one transaction: one commit per group, though each insert is still its own
+// statement. When that transaction fails the group is retried one booking per transaction, so
+// only the offending request fails.
+@Service
+public class BookingPipeline {
+    private static final Logger log = LoggerFactory.getLogger(BookingPipeline.class);
+    public static final int MAX_BATCH = 256;
+    @PersistenceContext
+    private EntityManager entityManager;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Value("${raillink.booking.pipeline.partitions:8}")
+    private int partitionCount;
+    @Value("${raillink.booking.pipeline.queue-capacity:10000}")
+    private int queueCapacity;
+    private Partition[] partitions;
+    private DistributionSummary batchSizes;
+    public record BookingRequest(long userId, long scheduleId, String ticketClass, String seatNumber) {}
+    public record BookingResult(long bookingId, long scheduleId, String ticketClass, String seatNumber) {}
+    private record Pending(BookingRequest request, CompletableFuture<BookingResult> result) {}
+    private record Assigned(Pending pending, SeatInventoryService.Seat seat) {}
+    @PostConstruct
+    public void start() {
+        batchSizes = DistributionSummary.builder("raillink.booking.pipeline.batch")
+                .description("Bookings committed per pipeline transaction")
+                .register(meterRegistry);
+        partitions = new Partition[Math.max(1, partitionCount)];
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new Partition(i);
+            partitions[i].thread.start();
+        }
+    }
+    @PreDestroy
+    public void shutdown() {
+        for (Partition partition : partitions) {
+            partition.thread.interrupt();
+        }
+    }
+    // Completes with the stored booking, or exceptionally when no seat is free, the partition
+    // queue is full or the booking could not be written.
+    public CompletableFuture<BookingResult> submit(BookingRequest request) {
+        CompletableFuture<BookingResult> result = new CompletableFuture<>();
+        Partition partition = partitions[Math.floorMod(Long.hashCode(request.scheduleId()), partitions.length)];
+        if (!partition.queue.offer(new Pending(request, result))) {
+            result.completeExceptionally(new RejectedExecutionException("Booking queue is full, try again shortly"));
+        }
+        return result;
+    }
+    private void process(List<Pending> batch) {
+        List<Assigned> assigned = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            BookingRequest request = pending.request();
+            try {
+                assigned.add(new Assigned(pending, seatInventoryService.reserve(request.scheduleId(), request.ticketClass(), request.seatNumber())));
+            } catch (RuntimeException e) {
+                pending.result().completeExceptionally(e);
+            }
+        }
+        if (assigned.isEmpty()) {
+            return;
+        }
+        List<Booking> bookings;
+        try {
+            bookings = transactionTemplate.execute(status -> assigned.stream().map(this::create).toList());
+        } catch (RuntimeException e) {
+            if (assigned.size() == 1) {
+                fail(assigned.get(0), e);
+                return;
+            }
+            log.warn("Booking batch of {} failed, retrying one by one", assigned.size(), e);
+            for (Assigned a : assigned) {
+                try {
+                    complete(a, transactionTemplate.execute(status -> create(a)));
+                } catch (RuntimeException rowFailure) {
+                    fail(a, rowFailure);
+                }
+            }
+            return;
+        }
+        batchSizes.record(assigned.size());
+        for (int i = 0; i < assigned.size(); i++) {
+            complete(assigned.get(i), bookings.get(i));
+        }
+    }
+    // References avoid loading the user and schedule rows; BookingChangeListener counts the
+    // booking once the transaction commits.
+    private Booking create(Assigned a) {
+        BookingRequest request = a.pending().request();
+        return bookingService.createBooking(entityManager.getReference(User.class, request.userId()),
+                entityManager.getReference(Schedule.class, request.scheduleId()), a.seat().seatNumber(), a.seat().ticketClass());
+    }
+    private static void complete(Assigned a, Booking booking) {
+        a.pending().result().complete(new BookingResult(booking.getId(), a.pending().request().scheduleId(),
+                a.seat().ticketClass(), a.seat().seatNumber()));
+    }
+    private void fail(Assigned a, RuntimeException e) {
+        seatInventoryService.release(a.pending().request().scheduleId(), a.seat().ticketClass(), a.seat().seatNumber());
+        a.pending().result().completeExceptionally(e);
+    }
+    private final class Partition implements Runnable {
+        private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>(queueCapacity);
+        private final Thread thread;
+        private Partition(int index) {
+            thread = new Thread(this, "booking-writer-" + index);
+            thread.setDaemon(true);
+        }
+        @Override
+        public void run() {
+            List<Pending> batch = new ArrayList<>(MAX_BATCH);
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                queue.drainTo(batch, MAX_BATCH - 1);
+                try {
+                    process(batch);
+                } catch (RuntimeException e) {
+                    log.error("Booking pipeline partition failed on a batch", e);
+                    batch.forEach(pending -> pending.result().completeExceptionally(e));
+                }
+                batch.clear();
+            }
+            Pending pending;
+            while ((pending = queue.poll()) != null) {
+                pending.result().completeExceptionally(new RejectedExecutionException("Booking pipeline stopped"));
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.raillink.service;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import io.micrometer.core.annotation.Timed;
+import com.raillink.config.MetricsConfig;
+import com.raillink.dto.BookingPage;
+import com.raillink.dto.BookingSummary;
+import com.raillink.repository.BookingQueryRepository;
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+@Transactional(readOnly = true)
+public class BookingQueryService {
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+    @Autowired
+    private BookingQueryRepository bookingQueryRepository;
+    public BookingPage findPage(Long before, int size) {
+        int pageSize = clampSize(size);
+        return toPage(bookingQueryRepository.findSummariesBefore(before, PageRequest.of(0, pageSize + 1)), pageSize);
+    }
+    public BookingPage findPageByPassenger(String passenger, Long before, int size) {
+        int pageSize = clampSize(size);
+        String pattern = "%" + passenger.trim().toLowerCase() + "%";
+        return toPage(bookingQueryRepository.findSummariesByPassengerBefore(pattern, before, PageRequest.of(0, pageSize + 1)), pageSize);
+    }
+    public BookingPage findById(Long id) {
+        return new BookingPage(bookingQueryRepository.findSummaryById(id), null, 1);
+    }
+    private BookingPage toPage(List<BookingSummary> rows, int pageSize) {
+        // One extra row is fetched to learn whether another page exists without a count query.
+        if (rows.size() <= pageSize) {
+            return new BookingPage(rows, null, pageSize);
+        }
+        List<BookingSummary> items = rows.subList(0, pageSize);
+        return new BookingPage(items, items.get(pageSize - 1).id(), pageSize);
+    }
+    private int clampSize(int size) {
+        if (size <= 0) return DEFAULT_PAGE_SIZE;
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+}
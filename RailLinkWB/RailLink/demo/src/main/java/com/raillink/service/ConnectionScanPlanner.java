@@ -0,0 +1,134 @@
+package com.raillink.service;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import com.raillink.dto.Journey;
+import com.raillink.dto.JourneyLeg;
+// Round-based Connection Scan: round r finds the earliest arrival at every station using at
+// most r transfers. Keeping one label array per round yields the Pareto set over
+// (arrival time, transfers) for a single origin and departure time.
+public final class ConnectionScanPlanner {
+    private static final long INFINITY = Long.MAX_VALUE;
+    private ConnectionScanPlanner() {}
+    public static List<Journey> plan(ConnectionTimetable timetable, long originId, long destinationId,
+                                     long departAfter, int maxTransfers, long minTransferSeconds) {
+        return plan(timetable, originId, destinationId, departAfter, maxTransfers, minTransferSeconds, null);
+    }
+    // transferAllowed, when given, is indexed like the timetable's stations and marks where changing trains is permitted.
+    public static List<Journey> plan(ConnectionTimetable timetable, long originId, long destinationId,
+                                     long departAfter, int maxTransfers, long minTransferSeconds,
+                                     boolean[] transferAllowed) {
+        Integer originIndex = timetable.stationIndex.get(originId);
+        Integer destinationIndex = timetable.stationIndex.get(destinationId);
+        if (originIndex == null || destinationIndex == null || originId == destinationId) {
+            return List.of();
+        }
+        int origin = originIndex;
+        int destination = destinationIndex;
+        int rounds = Math.max(0, maxTransfers) + 1;
+        int stations = timetable.stationCount();
+        long[][] arrival = new long[rounds][];
+        int[][] enter = new int[rounds][];
+        int[][] exit = new int[rounds][];
+        int[] tripEnter = new int[timetable.tripCount()];
+        int first = timetable.firstDepartingAtOrAfter(departAfter);
+        long best = INFINITY;
+        List<Integer> improvedRounds = new ArrayList<>();
+        for (int r = 0; r < rounds; r++) {
+            long[] arr;
+            int[] in;
+            int[] out;
+            if (r == 0) {
+                arr = new long[stations];
+                in = new int[stations];
+                out = new int[stations];
+                Arrays.fill(arr, INFINITY);
+                Arrays.fill(in, -1);
+                Arrays.fill(out, -1);
+                arr[origin] = departAfter;
+            } else {
+                arr = arrival[r - 1].clone();
+                in = enter[r - 1].clone();
+                out = exit[r - 1].clone();
+            }
+            long[] previous = r == 0 ? null : arrival[r - 1];
+            int[] previousExit = r == 0 ? null : exit[r - 1];
+            Arrays.fill(tripEnter, -1);
+            boolean changed = false;
+            for (int c = first; c < timetable.connectionCount(); c++) {
+                long dep = timetable.depTime[c];
+                if (dep >= arr[destination]) {
+                    break;
+                }
+                int t = timetable.trip[c];
+                if (tripEnter[t] < 0) {
+                    int s = timetable.depStation[c];
+                    long ready;
+                    if (r == 0) {
+                        ready = s == origin ? departAfter : INFINITY;
+                    } else if (previous[s] == INFINITY) {
+                        ready = INFINITY;
+                    } else if (previousExit[s] >= 0 && transferAllowed != null && !transferAllowed[s]) {
+                        ready = INFINITY;
+                    } else {
+                        // Staying at the origin needs no transfer buffer; changing trains does.
+                        ready = previousExit[s] < 0 ? previous[s] : previous[s] + minTransferSeconds;
+                    }
+                    if (ready > dep) {
+                        continue;
+                    }
+                    tripEnter[t] = c;
+                }
+                int a = timetable.arrStation[c];
+                if (timetable.arrTime[c] < arr[a]) {
+                    arr[a] = timetable.arrTime[c];
+                    in[a] = tripEnter[t];
+                    out[a] = c;
+                    changed = true;
+                }
+            }
+            arrival[r] = arr;
+            enter[r] = in;
+            exit[r] = out;
+            if (arr[destination] < best) {
+                best = arr[destination];
+                improvedRounds.add(r);
+            }
+            if (!changed) {
+                break;
+            }
+        }
+        List<Journey> journeys = new ArrayList<>(improvedRounds.size());
+        for (int r : improvedRounds) {
+            journeys.add(reconstruct(timetable, enter, exit, destination, r));
+        }
+        return journeys;
+    }
+    private static Journey reconstruct(ConnectionTimetable timetable, int[][] enter, int[][] exit, int destination, int round) {
+        List<JourneyLeg> legs = new ArrayList<>();
+        int station = destination;
+        int r = round;
+        while (r >= 0) {
+            // Labels copied forward from an earlier round belong to that round's journey.
+            while (r > 0 && exit[r][station] == exit[r - 1][station]) {
+                r--;
+            }
+            int out = exit[r][station];
+            if (out < 0) {
+                break;
+            }
+            int in = enter[r][station];
+            legs.add(new JourneyLeg(
+                    timetable.tripScheduleIds[timetable.trip[in]],
+                    timetable.stationIds[timetable.depStation[in]],
+                    timetable.stationIds[timetable.arrStation[out]],
+                    ConnectionTimetable.toDateTime(timetable.depTime[in]),
+                    ConnectionTimetable.toDateTime(timetable.arrTime[out])));
+            station = timetable.depStation[in];
+            r--;
+        }
+        Collections.reverse(legs);
+        return new Journey(legs.get(0).departureDate(), legs.get(legs.size() - 1).arrivalDate(), legs.size() - 1, legs);
+    }
+}
@@ -0,0 +1,218 @@
+package com.raillink.service;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+// Array-based timetable for the connection scan planner. Every schedule is broken into
+// elementary connections (one per hop between consecutive stops), stored column-wise
+// and sorted by departure time. Times are epoch seconds of the schedule's local time.
+public final class ConnectionTimetable {
+    final long version;
+    final long[] stationIds;
+    final Map<Long, Integer> stationIndex;
+    final long[] tripScheduleIds;
+    final int[] depStation;
+    final int[] arrStation;
+    final long[] depTime;
+    final long[] arrTime;
+    final int[] trip;
+    // Built on first use by departuresFrom; the timetable itself never changes.
+    private volatile StationDepartures stationDepartures;
+    private record StationDepartures(int[] offsets, int[] connections) {}
+    private ConnectionTimetable(long version, long[] stationIds, Map<Long, Integer> stationIndex, long[] tripScheduleIds,
+                                int[] depStation, int[] arrStation, long[] depTime, long[] arrTime, int[] trip) {
+        this.version = version;
+        this.stationIds = stationIds;
+        this.stationIndex = stationIndex;
+        this.tripScheduleIds = tripScheduleIds;
+        this.depStation = depStation;
+        this.arrStation = arrStation;
+        this.depTime = depTime;
+        this.arrTime = arrTime;
+        this.trip = trip;
+    }
+    public long version() {
+        return version;
+    }
+    public int connectionCount() {
+        return depTime.length;
+    }
+    public int tripCount() {
+        return tripScheduleIds.length;
+    }
+    public int stationCount() {
+        return stationIds.length;
+    }
+    // Index of the first connection departing at or after the given time.
+    int firstDepartingAtOrAfter(long time) {
+        int low = 0;
+        int high = depTime.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (depTime[mid] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    public Integer stationIndexOf(long stationId) {
+        return stationIndex.get(stationId);
+    }
+    public long scheduleIdOf(int connection) {
+        return tripScheduleIds[trip[connection]];
+    }
+    public long departureOf(int connection) {
+        return depTime[connection];
+    }
+    // Connections leaving the station with from <= departure < to, in departure order.
+    public void departuresFrom(int station, long from, long to, IntConsumer consumer) {
+        StationDepartures index = stationDepartures();
+        int low = index.offsets()[station];
+        int high = index.offsets()[station + 1];
+        int end = high;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (depTime[index.connections()[mid]] < from) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low; i < end && depTime[index.connections()[i]] < to; i++) {
+            consumer.accept(index.connections()[i]);
+        }
+    }
+    private StationDepartures stationDepartures() {
+        StationDepartures index = stationDepartures;
+        if (index == null) {
+            // Connections are already in departure order, so a counting sort by station keeps each slice sorted.
+            int[] offsets = new int[stationIds.length + 1];
+            for (int station : depStation) {
+                offsets[station + 1]++;
+            }
+            for (int s = 0; s < stationIds.length; s++) {
+                offsets[s + 1] += offsets[s];
+            }
+            int[] next = Arrays.copyOf(offsets, stationIds.length);
+            int[] connections = new int[depStation.length];
+            for (int c = 0; c < depStation.length; c++) {
+                connections[next[depStation[c]]++] = c;
+            }
+            index = new StationDepartures(offsets, connections);
+            stationDepartures = index;
+        }
+        return index;
+    }
+    // Only the first departure and final arrival are known per schedule, so intermediate
+    // stop times are spread evenly across the hops.
+    public static long[] stopTimes(int stopCount, LocalDateTime departure, LocalDateTime arrival) {
+        long start = toSeconds(departure);
+        long end = Math.max(start, toSeconds(arrival));
+        int hops = stopCount - 1;
+        long[] times = new long[stopCount];
+        for (int i = 0; i < stopCount; i++) {
+            times[i] = hops == 0 ? start : start + (end - start) * i / hops;
+        }
+        return times;
+    }
+    public static long toSeconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+    public static LocalDateTime toDateTime(long seconds) {
+        return LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+    }
+    public static Builder builder(long version) {
+        return new Builder(version);
+    }
+    public static final class Builder {
+        private final long version;
+        private final Map<Long, Integer> stationIndex = new HashMap<>();
+        private long[] stationIds = new long[64];
+        private long[] tripScheduleIds = new long[64];
+        private int trips;
+        private int[] depStation = new int[256];
+        private int[] arrStation = new int[256];
+        private long[] depTime = new long[256];
+        private long[] arrTime = new long[256];
+        private int[] trip = new int[256];
+        private int connections;
+        private Builder(long version) {
+            this.version = version;
+        }
+        public Builder addTrip(long scheduleId, long[] stops, LocalDateTime departure, LocalDateTime arrival) {
+            if (stops.length < 2 || departure == null || arrival == null) {
+                return this;
+            }
+            long[] times = stopTimes(stops.length, departure, arrival);
+            int hops = stops.length - 1;
+            if (trips == tripScheduleIds.length) {
+                tripScheduleIds = Arrays.copyOf(tripScheduleIds, trips * 2);
+            }
+            int tripIndex = trips++;
+            tripScheduleIds[tripIndex] = scheduleId;
+            for (int hop = 0; hop < hops; hop++) {
+                ensureConnectionCapacity();
+                depStation[connections] = station(stops[hop]);
+                arrStation[connections] = station(stops[hop + 1]);
+                depTime[connections] = times[hop];
+                arrTime[connections] = times[hop + 1];
+                trip[connections] = tripIndex;
+                connections++;
+            }
+            return this;
+        }
+        public ConnectionTimetable build() {
+            Integer[] order = new Integer[connections];
+            for (int i = 0; i < connections; i++) {
+                order[i] = i;
+            }
+            // Ties keep insertion order so hops of the same trip stay in sequence.
+            Arrays.sort(order, (a, b) -> {
+                int byDeparture = Long.compare(depTime[a], depTime[b]);
+                return byDeparture != 0 ? byDeparture : Integer.compare(a, b);
+            });
+            int[] sortedDep = new int[connections];
+            int[] sortedArr = new int[connections];
+            long[] sortedDepTime = new long[connections];
+            long[] sortedArrTime = new long[connections];
+            int[] sortedTrip = new int[connections];
+            for (int i = 0; i < connections; i++) {
+                int c = order[i];
+                sortedDep[i] = depStation[c];
+                sortedArr[i] = arrStation[c];
+                sortedDepTime[i] = depTime[c];
+                sortedArrTime[i] = arrTime[c];
+                sortedTrip[i] = trip[c];
+            }
+            return new ConnectionTimetable(version, Arrays.copyOf(stationIds, stationIndex.size()), Map.copyOf(stationIndex),
+                    Arrays.copyOf(tripScheduleIds, trips), sortedDep, sortedArr, sortedDepTime, sortedArrTime, sortedTrip);
+        }
+        private int station(long stationId) {
+            Integer index = stationIndex.get(stationId);
+            if (index != null) {
+                return index;
+            }
+            int next = stationIndex.size();
+            if (next == stationIds.length) {
+                stationIds = Arrays.copyOf(stationIds, next * 2);
+            }
+            stationIds[next] = stationId;
+            stationIndex.put(stationId, next);
+            return next;
+        }
+        private void ensureConnectionCapacity() {
+            if (connections == depTime.length) {
+                int size = connections * 2;
+                depStation = Arrays.copyOf(depStation, size);
+                arrStation = Arrays.copyOf(arrStation, size);
+                depTime = Arrays.copyOf(depTime, size);
+                arrTime = Arrays.copyOf(arrTime, size);
+                trip = Arrays.copyOf(trip, size);
+            }
+        }
+    }
+}
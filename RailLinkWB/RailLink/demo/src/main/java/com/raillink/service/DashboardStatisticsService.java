@@ -0,0 +1,50 @@
+package com.raillink.service;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import io.micrometer.core.annotation.Timed;
+import com.raillink.config.MetricsConfig;
+import com.raillink.model.Booking;
+import com.raillink.repository.BookingQueryRepository;
+import com.raillink.repository.RouteRepository;
+import com.raillink.repository.TrainRepository;
+import com.raillink.repository.UserRepository;
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class DashboardStatisticsService {
+    private static final long COUNTS_TTL_MILLIS = 15_000;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TrainRepository trainRepository;
+    @Autowired
+    private RouteRepository routeRepository;
+    @Autowired
+    private BookingQueryRepository bookingQueryRepository;
+    @Autowired
+    private StationCatalog stationCatalog;
+    private volatile Counts counts;
+    public record Counts(long users, long trains, long stations, long routes, long bookings, long loadedAt) {}
+    public Counts getCounts() {
+        Counts current = counts;
+        if (current == null || System.currentTimeMillis() - current.loadedAt() > COUNTS_TTL_MILLIS) {
+            current = new Counts(
+                    userRepository.count(),
+                    trainRepository.count(),
+                    stationCatalog.size(),
+                    routeRepository.count(),
+                    bookingQueryRepository.count(),
+                    System.currentTimeMillis());
+            counts = current;
+        }
+        return current;
+    }
+    @Transactional(readOnly = true)
+    public List<Booking> findRecentBookings(int limit) {
+        // Booking ids are IDENTITY-assigned in creation order, so the primary key
+        // doubles as the booking-date index for a top-N read.
+        return bookingQueryRepository.findMostRecent(PageRequest.of(0, limit));
+    }
+}
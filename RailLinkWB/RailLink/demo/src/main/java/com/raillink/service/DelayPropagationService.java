@@ -0,0 +1,169 @@
+package com.raillink.service;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import com.raillink.dto.BookingOwner;
+import com.raillink.dto.ScheduleTime;
+import com.raillink.model.Schedule;
+import com.raillink.repository.BookingQueryRepository;
+import com.raillink.repository.ScheduleJdbcRepository;
+import com.raillink.repository.ScheduleQueryRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+// Turns a recorded delay into estimated times at the delayed schedule's later stops and the
+// connections and bookings it puts at risk. A report only touches its own schedule: the stops
+// come from StationPairIndex, and the departures it could break are read from the same index
+// for the affected stations only. Reports are coalesced per schedule (latest wins)
+// and applied by one worker, so a burst of updates costs one propagation per schedule.
+@Service
+public class DelayPropagationService {
+    private static final Logger log = LoggerFactory.getLogger(DelayPropagationService.class);
+    @Autowired
+    private ScheduleQueryRepository scheduleQueryRepository;
+    @Autowired
+    private BookingQueryRepository bookingQueryRepository;
+    @Autowired
+    private StationPairIndex stationPairIndex;
+    @Autowired
+    private ScheduleJdbcRepository scheduleJdbcRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private SseHub sseHub;
+    @Autowired
+    private JobRegistry jobRegistry;
+    private final Map<Long, DelayReport> pending = new ConcurrentHashMap<>();
+    private final Map<Long, Propagation> propagations = new ConcurrentHashMap<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private ExecutorService executor;
+    public record StopEstimate(int stop, long stationId, LocalDateTime planned, LocalDateTime estimated) {}
+    public record AtRiskConnection(long stationId, long scheduleId, LocalDateTime departure) {}
+    public record Propagation(long scheduleId, int delayMinutes, int fromStop, List<StopEstimate> stops,
+                              List<AtRiskConnection> connections, List<Long> bookingsAtRisk, Instant computedAt) {
+        // What the public delays topic carries: the estimates without anyone's bookings.
+        private Propagation withoutBookings() {
+            return new Propagation(scheduleId, delayMinutes, fromStop, stops, connections, List.of(), computedAt);
+        }
+    }
+    private record DelayReport(long scheduleId, int delayMinutes, int fromStop, boolean persist) {}
+    @PostConstruct
+    public void start() {
+        executor = jobRegistry.worker("delay-propagation");
+    }
+    // fromStop is the 0-based stop where the delay was observed; persist writes delayMinutes
+    // for callers that have not saved the schedule themselves.
+    public void record(long scheduleId, int delayMinutes, int fromStop, boolean persist) {
+        pending.merge(scheduleId, new DelayReport(scheduleId, delayMinutes, Math.max(fromStop, 0), persist),
+                (previous, next) -> new DelayReport(scheduleId, next.delayMinutes(), next.fromStop(),
+                        previous.persist() || next.persist()));
+        if (draining.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+    public Optional<Propagation> find(long scheduleId) {
+        return Optional.ofNullable(propagations.get(scheduleId));
+    }
+    @Scheduled(fixedDelay = 600_000)
+    public void evictArrivedSchedules() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(6);
+        propagations.values().removeIf(p -> p.stops().isEmpty() || p.stops().get(p.stops().size() - 1).estimated().isBefore(cutoff));
+    }
+    private void drain() {
+        try {
+            while (!pending.isEmpty()) {
+                List<DelayReport> reports = new ArrayList<>();
+                for (Long scheduleId : pending.keySet()) {
+                    DelayReport report = pending.remove(scheduleId);
+                    if (report != null) {
+                        reports.add(report);
+                    }
+                }
+                persist(reports);
+                for (DelayReport report : reports) {
+                    try {
+                        propagate(report);
+                    } catch (RuntimeException e) {
+                        log.warn("Delay propagation for schedule {} failed", report.scheduleId(), e);
+                    }
+                }
+            }
+        } finally {
+            draining.set(false);
+            if (!pending.isEmpty() && draining.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+    }
+    private void persist(List<DelayReport> reports) {
+        List<DelayReport> writes = reports.stream().filter(DelayReport::persist).toList();
+        if (writes.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> delays = new LinkedHashMap<>();
+        writes.forEach(report -> delays.put(report.scheduleId(), report.delayMinutes()));
+        scheduleJdbcRepository.updateDelays(delays);
+        // No index version bump: search results carry no delay, so the result cache, search ETags
+        // and the journey planner's timetable all stay valid.
+        writes.forEach(report -> entityManagerFactory.getCache().evict(Schedule.class, report.scheduleId()));
+    }
+    private void propagate(DelayReport report) {
+        ScheduleTime schedule = scheduleQueryRepository.findTimeById(report.scheduleId()).orElse(null);
+        long[] stops = schedule != null ? stationPairIndex.stopsOf(schedule.routeId()) : new long[0];
+        if (schedule == null || stops.length < 2 || schedule.departureDate() == null || schedule.arrivalDate() == null) {
+            propagations.remove(report.scheduleId());
+            return;
+        }
+        long[] planned = ConnectionTimetable.stopTimes(stops.length, schedule.departureDate(), schedule.arrivalDate());
+        int fromStop = Math.min(report.fromStop(), stops.length - 1);
+        long shift = report.delayMinutes() * 60L;
+        List<StopEstimate> estimates = new ArrayList<>(stops.length - fromStop);
+        for (int i = fromStop; i < stops.length; i++) {
+            estimates.add(new StopEstimate(i, stops[i], ConnectionTimetable.toDateTime(planned[i]),
+                    ConnectionTimetable.toDateTime(planned[i] + shift)));
+        }
+        List<AtRiskConnection> connections = shift > 0
+                ? atRiskConnections(report.scheduleId(), stops, planned, Math.max(fromStop, 1), shift)
+                : List.of();
+        List<BookingOwner> bookings = connections.isEmpty() ? List.of()
+                : bookingQueryRepository.findConnectingBookings(report.scheduleId(),
+                        connections.stream().map(AtRiskConnection::scheduleId).distinct().toList());
+        Propagation propagation = new Propagation(report.scheduleId(), report.delayMinutes(), fromStop,
+                List.copyOf(estimates), connections, bookings.stream().map(BookingOwner::bookingId).toList(), Instant.now());
+        propagations.put(report.scheduleId(), propagation);
+        sseHub.publish("delays", "delay-propagated", "schedule:" + report.scheduleId(), propagation.withoutBookings());
+        for (BookingOwner booking : bookings) {
+            sseHub.publishTo(booking.username(), SseHub.BOOKINGS_TOPIC, "booking-at-risk", "booking:" + booking.bookingId(),
+                    Map.of("bookingId", booking.bookingId(), "scheduleId", report.scheduleId(), "delayMinutes", report.delayMinutes()));
+        }
+    }
+    // A connection is at risk when it left enough transfer time against the planned arrival
+    // but not against the estimated one.
+    private List<AtRiskConnection> atRiskConnections(long scheduleId, long[] stops, long[] planned, int fromStop, long shift) {
+        long transfer = JourneyPlannerService.DEFAULT_MIN_TRANSFER_MINUTES * 60L;
+        Map<String, AtRiskConnection> byKey = new LinkedHashMap<>();
+        for (int i = fromStop; i < stops.length; i++) {
+            long stationId = stops[i];
+            for (StationPairIndex.StopDeparture departure : stationPairIndex.departuresFrom(stationId,
+                    ConnectionTimetable.toDateTime(planned[i] + transfer), ConnectionTimetable.toDateTime(planned[i] + shift + transfer))) {
+                if (departure.scheduleId() != scheduleId) {
+                    byKey.putIfAbsent(departure.scheduleId() + ":" + stationId,
+                            new AtRiskConnection(stationId, departure.scheduleId(), departure.departure()));
+                }
+            }
+        }
+        return List.copyOf(byKey.values());
+    }
+}
@@ -0,0 +1,48 @@
+package com.raillink.service;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import jakarta.annotation.PreDestroy;
+// Background jobs by id, for the status endpoints, and the worker threads that run them.
+// Finished jobs stay readable for RETENTION and are then dropped.
+@Component
+public class JobRegistry {
+    public static final Duration RETENTION = Duration.ofHours(1);
+    private final Map<String, BackgroundJob> jobs = new ConcurrentHashMap<>();
+    private final List<ExecutorService> workers = new CopyOnWriteArrayList<>();
+    public <J extends BackgroundJob> J register(J job) {
+        jobs.put(job.getId(), job);
+        return job;
+    }
+    public <J extends BackgroundJob> Optional<J> find(String id, Class<J> type) {
+        BackgroundJob job = id != null ? jobs.get(id) : null;
+        return type.isInstance(job) ? Optional.of(type.cast(job)) : Optional.empty();
+    }
+    // A single daemon thread, so work handed to one worker runs in submission order.
+    public ExecutorService worker(String threadName) {
+        ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, threadName);
+            t.setDaemon(true);
+            return t;
+        });
+        workers.add(worker);
+        return worker;
+    }
+    @Scheduled(fixedDelay = 600_000)
+    public void evictFinishedJobs() {
+        Instant cutoff = Instant.now().minus(RETENTION);
+        jobs.values().removeIf(job -> job.getFinishedAt() != null && job.getFinishedAt().isBefore(cutoff));
+    }
+    @PreDestroy
+    public void shutdown() {
+        workers.forEach(ExecutorService::shutdownNow);
+    }
+}
@@ -0,0 +1,118 @@
+package com.raillink.service;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import io.micrometer.core.annotation.Timed;
+import com.raillink.config.MetricsConfig;
+import com.raillink.dto.Journey;
+import com.raillink.dto.ScheduleTime;
+import com.raillink.model.Facility;
+// Multi-leg journeys by connection scan over a timetable shared until StationPairIndex changes.
+// JourneyPlannerBenchmark (src/jmh) measures planning and timetable builds.
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class JourneyPlannerService {
+    public static final int DEFAULT_MAX_TRANSFERS = 3;
+    public static final int DEFAULT_MIN_TRANSFER_MINUTES = 10;
+    // The shared timetable covers departures from yesterday up to this many days ahead;
+    // searches further out share a timetable per departure day, of which only the most recently
+    // used are kept.
+    private static final int HORIZON_DAYS = 8;
+    private static final int SEARCH_WINDOW_DAYS = 2;
+    private static final int MAX_DAY_TIMETABLES = 16;
+    @Autowired
+    private StationPairIndex stationPairIndex;
+    @Autowired
+    private StationCatalog stationCatalog;
+    private volatile Cached cached;
+    // Access-ordered; builds run under its monitor so requests spread over many days cannot
+    // rebuild timetables on every thread at once.
+    private final Map<LocalDate, ConnectionTimetable> dayTimetables = new LinkedHashMap<>(MAX_DAY_TIMETABLES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<LocalDate, ConnectionTimetable> eldest) {
+            return size() > MAX_DAY_TIMETABLES;
+        }
+    };
+    private record Cached(ConnectionTimetable timetable, LocalDateTime from, LocalDateTime to) {}
+    public List<Journey> plan(Long originId, Long destinationId, LocalDateTime departAfter,
+                              Integer maxTransfers, Integer minTransferMinutes) {
+        return plan(originId, destinationId, departAfter, maxTransfers, minTransferMinutes, Set.of());
+    }
+    // Required facilities apply to every station where the passenger boards, changes or alights.
+    public List<Journey> plan(Long originId, Long destinationId, LocalDateTime departAfter,
+                              Integer maxTransfers, Integer minTransferMinutes, Set<Facility> requiredFacilities) {
+        if (originId == null || destinationId == null || departAfter == null) {
+            return List.of();
+        }
+        long requiredMask = Facility.toMask(requiredFacilities);
+        if (!stationCatalog.hasFacilities(originId, requiredMask) || !stationCatalog.hasFacilities(destinationId, requiredMask)) {
+            return List.of();
+        }
+        int transfers = maxTransfers != null ? Math.min(Math.max(maxTransfers, 0), 6) : DEFAULT_MAX_TRANSFERS;
+        int transferMinutes = minTransferMinutes != null ? Math.max(minTransferMinutes, 0) : DEFAULT_MIN_TRANSFER_MINUTES;
+        ConnectionTimetable timetable = timetableFor(departAfter);
+        boolean[] transferAllowed = null;
+        if (requiredMask != 0) {
+            transferAllowed = new boolean[timetable.stationCount()];
+            for (int i = 0; i < transferAllowed.length; i++) {
+                transferAllowed[i] = stationCatalog.hasFacilities(timetable.stationIds[i], requiredMask);
+            }
+        }
+        return ConnectionScanPlanner.plan(timetable, originId, destinationId,
+                ConnectionTimetable.toSeconds(departAfter), transfers, transferMinutes * 60L, transferAllowed);
+    }
+    public ConnectionTimetable timetableFor(LocalDateTime departAfter) {
+        StationPairIndex.TimetableView view = stationPairIndex.timetable();
+        Cached current = cached;
+        LocalDateTime searchEnd = departAfter.plusDays(SEARCH_WINDOW_DAYS);
+        if (current != null && current.timetable().version() == view.version()
+                && !departAfter.isBefore(current.from()) && !searchEnd.isAfter(current.to())) {
+            return current.timetable();
+        }
+        LocalDateTime from = LocalDate.now().minusDays(1).atStartOfDay();
+        LocalDateTime to = from.plusDays(HORIZON_DAYS + 1);
+        if (departAfter.isBefore(from) || searchEnd.isAfter(to)) {
+            return dayTimetable(view, departAfter.toLocalDate());
+        }
+        synchronized (this) {
+            current = cached;
+            if (current == null || current.timetable().version() != view.version() || !current.from().equals(from)) {
+                current = new Cached(build(view, from, to), from, to);
+                cached = current;
+            }
+            return current.timetable();
+        }
+    }
+    private ConnectionTimetable dayTimetable(StationPairIndex.TimetableView view, LocalDate day) {
+        synchronized (dayTimetables) {
+            ConnectionTimetable timetable = dayTimetables.get(day);
+            if (timetable == null || timetable.version() != view.version()) {
+                LocalDateTime from = day.atStartOfDay();
+                timetable = build(view, from, from.plusDays(SEARCH_WINDOW_DAYS + 1));
+                dayTimetables.put(day, timetable);
+            }
+            return timetable;
+        }
+    }
+    private static ConnectionTimetable build(StationPairIndex.TimetableView view, LocalDateTime from, LocalDateTime to) {
+        ConnectionTimetable.Builder builder = ConnectionTimetable.builder(view.version());
+        for (Map.Entry<Long, List<ScheduleTime>> entry : view.schedulesByRoute().entrySet()) {
+            long[] stops = view.stopsByRoute().get(entry.getKey());
+            if (stops == null) {
+                continue;
+            }
+            for (ScheduleTime schedule : entry.getValue()) {
+                LocalDateTime departure = schedule.departureDate();
+                if (departure != null && !departure.isBefore(from) && departure.isBefore(to)) {
+                    builder.addTrip(schedule.scheduleId(), stops, departure, schedule.arrivalDate());
+                }
+            }
+        }
+        return builder.build();
+    }
+}
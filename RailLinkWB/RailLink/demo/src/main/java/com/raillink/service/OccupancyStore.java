@@ -0,0 +1,211 @@
+package com.raillink.service;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import io.micrometer.core.annotation.Timed;
+import com.raillink.config.MetricsConfig;
+import com.raillink.dto.ClassCapacity;
+import com.raillink.dto.ClassOccupancy;
+import com.raillink.dto.ScheduleTime;
+import com.raillink.repository.BookingQueryRepository;
+import com.raillink.repository.ScheduleQueryRepository;
+// Booked-seat counters per schedule and ticket class, kept next to the capacities from
+// Train.getClasses() so load factors never need a scan of bookings. BookingChangeListener moves
+// the counters after every committed create, cancel or schedule change; a schedule not yet
+// tracked is loaded from the database on first touch instead. rebuild() reconciles everything
+// from grouped counts.
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class OccupancyStore {
+    // Key for bookings made without a ticket class.
+    private static final String NO_CLASS = "";
+    @Autowired
+    private ScheduleQueryRepository scheduleQueryRepository;
+    @Autowired
+    private BookingQueryRepository bookingQueryRepository;
+    @Value("${raillink.occupancy.history-days:30}")
+    private int historyDays;
+    private volatile Map<Long, ScheduleOccupancy> schedules = new ConcurrentHashMap<>();
+    public record ClassLoad(String ticketClass, int capacity, int booked, double loadFactor) {}
+    public record ScheduleLoad(long scheduleId, long routeId, LocalDate date, int capacity, int booked, double loadFactor,
+                               List<ClassLoad> classes) {}
+    // ticketClass is null when the row covers whole trains.
+    public record LoadSummary(long routeId, LocalDate date, String ticketClass, int schedules, int capacity, int booked,
+                              double loadFactor) {}
+    private record ScheduleKey(long routeId, LocalDate date) {}
+    // Callers pass the booking's state before and after a committed change; either side may be null.
+    public void bookingChanged(Long oldScheduleId, String oldClass, boolean wasActive,
+                               Long newScheduleId, String newClass, boolean isActive) {
+        if (wasActive) {
+            adjust(oldScheduleId, oldClass, -1);
+        }
+        if (isActive) {
+            adjust(newScheduleId, newClass, 1);
+        }
+    }
+    public void bookingCreated(Long scheduleId, String ticketClass) {
+        adjust(scheduleId, ticketClass, 1);
+    }
+    public void bookingCancelled(Long scheduleId, String ticketClass) {
+        adjust(scheduleId, ticketClass, -1);
+    }
+    // Recounts one schedule, for changes made in bulk outside the counters.
+    public void refresh(Long scheduleId) {
+        ScheduleOccupancy loaded = load(scheduleId);
+        if (loaded != null) {
+            schedules.put(scheduleId, loaded);
+        } else {
+            schedules.remove(scheduleId);
+        }
+    }
+    public Optional<ScheduleLoad> findSchedule(Long scheduleId) {
+        ScheduleOccupancy occupancy = schedules.computeIfAbsent(scheduleId, this::load);
+        return Optional.ofNullable(occupancy).map(o -> o.toLoad(scheduleId));
+    }
+    public List<LoadSummary> summarize(Long routeId, LocalDate from, LocalDate to, String ticketClass) {
+        String classKey = ticketClass == null || ticketClass.isBlank() ? null : ticketClass.trim();
+        Map<ScheduleKey, int[]> totals = new TreeMap<>(Comparator.comparingLong(ScheduleKey::routeId).thenComparing(ScheduleKey::date));
+        for (ScheduleOccupancy o : schedules.values()) {
+            if ((routeId != null && o.routeId != routeId) || (from != null && o.date.isBefore(from)) || (to != null && o.date.isAfter(to))) {
+                continue;
+            }
+            int capacity;
+            int booked;
+            if (classKey == null) {
+                capacity = o.totalCapacity();
+                booked = o.totalBooked();
+            } else {
+                Integer classCapacity = o.capacities.get(classKey);
+                if (classCapacity == null) {
+                    continue;
+                }
+                capacity = classCapacity;
+                booked = o.booked(classKey);
+            }
+            int[] sums = totals.computeIfAbsent(new ScheduleKey(o.routeId, o.date), k -> new int[3]);
+            sums[0]++;
+            sums[1] += capacity;
+            sums[2] += booked;
+        }
+        List<LoadSummary> summaries = new ArrayList<>(totals.size());
+        totals.forEach((key, sums) -> summaries.add(new LoadSummary(key.routeId(), key.date(), classKey, sums[0], sums[1], sums[2],
+                loadFactor(sums[2], sums[1]))));
+        return summaries;
+    }
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${raillink.occupancy.rebuild-cron:0 15 3 * * *}")
+    public void reconcile() {
+        rebuild();
+    }
+    // Updates that land between the grouped queries and the swap are only picked up by the next run.
+    public int rebuild() {
+        LocalDateTime from = LocalDate.now().minusDays(historyDays).atStartOfDay();
+        Map<Long, Map<String, Integer>> capacities = new HashMap<>();
+        for (ClassCapacity capacity : scheduleQueryRepository.findUpcomingClassCapacities(from)) {
+            if (capacity.ticketClass() != null && capacity.capacity() != null && capacity.capacity() > 0) {
+                capacities.computeIfAbsent(capacity.scheduleId(), id -> new HashMap<>()).put(capacity.ticketClass(), capacity.capacity());
+            }
+        }
+        Map<Long, ScheduleOccupancy> rebuilt = new ConcurrentHashMap<>();
+        for (ScheduleTime time : scheduleQueryRepository.findTimesDepartingFrom(from)) {
+            rebuilt.put(time.scheduleId(), new ScheduleOccupancy(time.routeId(), time.departureDate().toLocalDate(),
+                    capacities.getOrDefault(time.scheduleId(), Map.of())));
+        }
+        for (ClassOccupancy count : bookingQueryRepository.countActiveByClassDepartingFrom(from)) {
+            ScheduleOccupancy o = rebuilt.get(count.scheduleId());
+            if (o != null) {
+                o.add(count.ticketClass(), count.booked().intValue());
+            }
+        }
+        schedules = rebuilt;
+        return rebuilt.size();
+    }
+    // Changes arrive after their commit, so a schedule loaded here already counts the change that
+    // triggered the load and the delta is not applied on top. Other changes to the same schedule
+    // wait for the load and are applied to the loaded counters, never dropped. A change committed
+    // just before the load query but adjusted after it is counted twice until the next rebuild().
+    private void adjust(Long scheduleId, String ticketClass, int delta) {
+        if (scheduleId == null) {
+            return;
+        }
+        schedules.compute(scheduleId, (id, o) -> {
+            if (o == null) {
+                return load(id);
+            }
+            o.add(ticketClass, delta);
+            return o;
+        });
+    }
+    private ScheduleOccupancy load(Long scheduleId) {
+        ScheduleTime time = scheduleQueryRepository.findTimeById(scheduleId).orElse(null);
+        if (time == null || time.departureDate() == null) {
+            return null;
+        }
+        Map<String, Integer> capacities = new HashMap<>();
+        for (ClassCapacity capacity : scheduleQueryRepository.findClassCapacities(scheduleId)) {
+            if (capacity.ticketClass() != null && capacity.capacity() != null && capacity.capacity() > 0) {
+                capacities.put(capacity.ticketClass(), capacity.capacity());
+            }
+        }
+        ScheduleOccupancy o = new ScheduleOccupancy(time.routeId(), time.departureDate().toLocalDate(), capacities);
+        for (ClassOccupancy count : bookingQueryRepository.countActiveByClass(scheduleId)) {
+            o.add(count.ticketClass(), count.booked().intValue());
+        }
+        return o;
+    }
+    private static double loadFactor(int booked, int capacity) {
+        return capacity == 0 ? 0.0 : (double) booked / capacity;
+    }
+    private static String classKey(String ticketClass) {
+        return ticketClass == null || ticketClass.isBlank() ? NO_CLASS : ticketClass.trim();
+    }
+    private static final class ScheduleOccupancy {
+        private final long routeId;
+        private final LocalDate date;
+        private final Map<String, Integer> capacities;
+        private final Map<String, AtomicInteger> booked = new ConcurrentHashMap<>();
+        private ScheduleOccupancy(long routeId, LocalDate date, Map<String, Integer> capacities) {
+            this.routeId = routeId;
+            this.date = date;
+            this.capacities = Map.copyOf(capacities);
+        }
+        private void add(String ticketClass, int delta) {
+            booked.computeIfAbsent(classKey(ticketClass), k -> new AtomicInteger()).addAndGet(delta);
+        }
+        private int booked(String ticketClass) {
+            AtomicInteger count = booked.get(ticketClass);
+            return count != null ? Math.max(count.get(), 0) : 0;
+        }
+        private int totalCapacity() {
+            return capacities.values().stream().mapToInt(Integer::intValue).sum();
+        }
+        // Bookings without a class draw on the whole train, so they count toward the total only.
+        private int totalBooked() {
+            return booked.values().stream().mapToInt(count -> Math.max(count.get(), 0)).sum();
+        }
+        private ScheduleLoad toLoad(long scheduleId) {
+            List<ClassLoad> classes = new ArrayList<>(capacities.size());
+            new TreeMap<>(capacities).forEach((ticketClass, capacity) -> {
+                int count = booked(ticketClass);
+                classes.add(new ClassLoad(ticketClass, capacity, count, loadFactor(count, capacity)));
+            });
+            int capacity = totalCapacity();
+            int total = totalBooked();
+            return new ScheduleLoad(scheduleId, routeId, date, capacity, total, loadFactor(total, capacity), classes);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.raillink.service;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import io.micrometer.core.annotation.Timed;
+import com.raillink.config.MetricsConfig;
+import com.raillink.model.Route;
+import com.raillink.model.Train;
+import com.raillink.repository.RouteQueryRepository;
+import com.raillink.repository.TrainQueryRepository;
+// Train and route lists for admin pages and forms, read through the Hibernate query and
+// second-level caches (see ehcache.xml). Writes still go through TrainService/RouteService,
+// which invalidates the cached results.
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+@Transactional(readOnly = true)
+public class ReferenceDataService {
+    @Autowired
+    private TrainQueryRepository trainQueryRepository;
+    @Autowired
+    private RouteQueryRepository routeQueryRepository;
+    public List<Train> findAllTrains() {
+        return trainQueryRepository.findAllCached();
+    }
+    public List<Route> findAllRoutes() {
+        return routeQueryRepository.findAllCached();
+    }
+}
@@ -0,0 +1,156 @@
+package com.raillink.service;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.annotation.Timed;
+import com.raillink.config.MetricsConfig;
+import com.raillink.dto.BookingSummary;
+import com.raillink.dto.ScheduleExportRow;
+import com.raillink.repository.BookingQueryRepository;
+import com.raillink.repository.ScheduleQueryRepository;
+// Booking and schedule reports streamed row by row from the database to the response.
+// Rows are DTO projections written one at a time, so heap use does not grow with the export.
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class ReportExportService {
+    private static final int FLUSH_EVERY = 1_000;
+    private static final String[] BOOKING_COLUMNS = {"id", "booking_date", "status", "seat_number", "ticket_class",
+            "user_id", "username", "email", "schedule_id", "schedule_name", "departure_date", "train_name"};
+    private static final String[] SCHEDULE_COLUMNS = {"id", "schedule_name", "status", "delay_minutes", "departure_date",
+            "arrival_date", "train_id", "train_name", "route_id", "route_path", "pricing_json"};
+    @Autowired
+    private BookingQueryRepository bookingQueryRepository;
+    @Autowired
+    private ScheduleQueryRepository scheduleQueryRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ObjectMapper objectMapper;
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+        private final String contentType;
+        private final String extension;
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+        public String contentType() {
+            return contentType;
+        }
+        public String extension() {
+            return extension;
+        }
+        public static Optional<Format> parse(String value) {
+            if (value == null || value.isBlank()) {
+                return Optional.of(CSV);
+            }
+            String normalized = value.trim().toUpperCase(Locale.ROOT);
+            if ("JSON".equals(normalized) || "JSONL".equals(normalized)) {
+                return Optional.of(NDJSON);
+            }
+            try {
+                return Optional.of(valueOf(normalized));
+            } catch (IllegalArgumentException e) {
+                return Optional.empty();
+            }
+        }
+    }
+    public long exportBookings(Format format, LocalDateTime from, LocalDateTime to, OutputStream out) throws IOException {
+        return export(() -> bookingQueryRepository.streamSummaries(from, to), format, BOOKING_COLUMNS,
+                b -> new Object[] {b.id(), b.bookingDate(), b.status(), b.seatNumber(), b.ticketClass(), b.userId(),
+                        b.username(), b.email(), b.scheduleId(), b.scheduleName(), b.departureDate(), b.trainName()},
+                BookingSummary.class, out);
+    }
+    public long exportSchedules(Format format, LocalDateTime from, LocalDateTime to, OutputStream out) throws IOException {
+        return export(() -> scheduleQueryRepository.streamExportRows(from, to), format, SCHEDULE_COLUMNS,
+                s -> new Object[] {s.id(), s.scheduleName(), s.status(), s.delayMinutes(), s.departureDate(),
+                        s.arrivalDate(), s.trainId(), s.trainName(), s.routeId(), s.routePath(), s.pricingJson()},
+                ScheduleExportRow.class, out);
+    }
+    private <T> long export(Supplier<Stream<T>> query, Format format, String[] columns, Function<T, Object[]> values,
+                            Class<T> type, OutputStream out) throws IOException {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        ObjectWriter json = objectMapper.writerFor(type);
+        long[] count = new long[1];
+        try {
+            readOnly.executeWithoutResult(status -> {
+                try (Stream<T> rows = query.get()) {
+                    if (format == Format.CSV) {
+                        writeCsvRow(writer, columns);
+                    }
+                    Iterator<T> it = rows.iterator();
+                    while (it.hasNext()) {
+                        T row = it.next();
+                        if (format == Format.CSV) {
+                            writeCsvRow(writer, values.apply(row));
+                        } else {
+                            writer.write(json.writeValueAsString(row));
+                            writer.write('\n');
+                        }
+                        if (++count[0] % FLUSH_EVERY == 0) {
+                            writer.flush();
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new ExportAbortedException(e);
+                }
+            });
+        } catch (ExportAbortedException e) {
+            // Usually the client went away mid-download; the transaction has been rolled back.
+            throw e.getCause();
+        }
+        writer.flush();
+        return count[0];
+    }
+    private static void writeCsvRow(Writer writer, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csvField(values[i]));
+        }
+        writer.write("\r\n");
+    }
+    static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        // Text starting with a formula character is prefixed so spreadsheets do not evaluate it.
+        if (value instanceof String && !text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+    private static final class ExportAbortedException extends RuntimeException {
+        private ExportAbortedException(IOException cause) {
+            super(cause);
+        }
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+}
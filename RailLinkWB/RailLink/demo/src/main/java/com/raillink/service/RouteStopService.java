@@ -0,0 +1,160 @@
+package com.raillink.service;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import com.raillink.dto.RoutePath;
+import com.raillink.model.Route;
+import com.raillink.model.RouteStop;
+import com.raillink.repository.RouteQueryRepository;
+import com.raillink.repository.RouteStopRepository;
+// Ordered stop sequences for routes, stored in route_stops. Route.path is still written as a
+// legacy mirror for older readers, but stop order is read from here.
+@Service
+public class RouteStopService {
+    private static final long[] NO_STOPS = new long[0];
+    @Autowired
+    private RouteStopRepository routeStopRepository;
+    @Autowired
+    private RouteQueryRepository routeQueryRepository;
+    @Autowired
+    private RouteService routeService;
+    private final Map<Long, long[]> stopsByRoute = new ConcurrentHashMap<>();
+    // Callers must not modify the returned array; it is the cached copy.
+    public long[] stopsOf(Long routeId) {
+        if (routeId == null) {
+            return NO_STOPS;
+        }
+        return stopsByRoute.computeIfAbsent(routeId, id ->
+                stationIdsOf(routeStopRepository.findByRouteIdOrderByPositionAsc(id)));
+    }
+    public Map<Long, long[]> allStops() {
+        Map<Long, List<RouteStop>> grouped = new HashMap<>();
+        for (RouteStop stop : routeStopRepository.findAllOrdered()) {
+            grouped.computeIfAbsent(stop.getRouteId(), id -> new ArrayList<>()).add(stop);
+        }
+        Map<Long, long[]> all = new HashMap<>();
+        grouped.forEach((routeId, stops) -> {
+            long[] array = stationIdsOf(stops);
+            stopsByRoute.put(routeId, array);
+            all.put(routeId, array);
+        });
+        return all;
+    }
+    public List<Long> findRouteIdsServing(Long stationId) {
+        return routeStopRepository.findRouteIdsServing(stationId);
+    }
+    // Saves the route and its stop sequence together, so a failed stop write does not leave a
+    // route without stops. Null stops keep the stored sequence.
+    @Transactional
+    public Route saveRoute(Route route, long[] stops) {
+        if (stops != null) {
+            // Route.path is kept as a mirror of route_stops for older readers.
+            route.setPath(toPath(stops));
+        }
+        routeService.saveRoute(route);
+        if (stops != null) {
+            replaceStops(route.getId(), stops);
+        }
+        return route;
+    }
+    @Transactional
+    public long[] replaceStops(Long routeId, long[] stationIds) {
+        routeStopRepository.deleteByRouteId(routeId);
+        List<RouteStop> stops = new ArrayList<>(stationIds.length);
+        for (int i = 0; i < stationIds.length; i++) {
+            stops.add(new RouteStop(routeId, stationIds[i], i));
+        }
+        routeStopRepository.saveAll(stops);
+        long[] copy = stationIds.clone();
+        afterCommit(() -> stopsByRoute.put(routeId, copy));
+        return copy;
+    }
+    @Transactional
+    public void deleteStops(Long routeId) {
+        routeStopRepository.deleteByRouteId(routeId);
+        afterCommit(() -> stopsByRoute.remove(routeId));
+    }
+    // One-off migration from the comma-separated Route.path column for routes without stop rows.
+    // StationPairIndex reloads right after it (order 1), replacing any index a search built first.
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    @Transactional
+    public void migrateLegacyPaths() {
+        Set<Long> migrated = new HashSet<>(routeStopRepository.findRouteIdsWithStops());
+        for (RoutePath route : routeQueryRepository.findAllPaths()) {
+            if (!migrated.contains(route.routeId())) {
+                long[] stops = parsePath(route.path());
+                if (stops.length > 0) {
+                    replaceStops(route.routeId(), stops);
+                }
+            }
+        }
+    }
+    public static long[] parsePath(String path) {
+        if (path == null || path.isBlank()) {
+            return NO_STOPS;
+        }
+        String[] parts = path.split(",");
+        long[] stops = new long[parts.length];
+        int count = 0;
+        for (String part : parts) {
+            String value = part.trim();
+            if (value.isEmpty()) {
+                continue;
+            }
+            try {
+                stops[count] = Long.parseLong(value);
+                count++;
+            } catch (NumberFormatException ignored) {}
+        }
+        return count == stops.length ? stops : Arrays.copyOf(stops, count);
+    }
+    public static long[] toArray(List<Long> stationIds) {
+        long[] stops = new long[stationIds.size()];
+        for (int i = 0; i < stops.length; i++) {
+            stops[i] = stationIds.get(i);
+        }
+        return stops;
+    }
+    public static String toPath(long[] stops) {
+        StringJoiner joiner = new StringJoiner(",");
+        for (long stop : stops) {
+            joiner.add(Long.toString(stop));
+        }
+        return joiner.toString();
+    }
+    // The cache only follows committed rows, so a rolled back write leaves it as it was.
+    private static void afterCommit(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+    private static long[] stationIdsOf(List<RouteStop> stops) {
+        long[] array = new long[stops.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = stops.get(i).getStationId();
+        }
+        return array;
+    }
+}
@@ -0,0 +1,173 @@
+package com.raillink.service;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import com.raillink.config.MetricsConfig;
+import com.raillink.dto.ActiveBooking;
+import com.raillink.dto.NewRefund;
+import com.raillink.dto.ScheduleTime;
+import com.raillink.model.Schedule;
+import com.raillink.repository.BookingQueryRepository;
+import com.raillink.repository.RefundJdbcRepository;
+import com.raillink.repository.ScheduleJdbcRepository;
+import com.raillink.repository.ScheduleQueryRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+// Cancels a whole schedule in the background. Bookings are locked, cancelled and refunded
+// BATCH_SIZE at a time: one bulk UPDATE and one batched refund INSERT per transaction, so a
+// full train costs a few round trips per batch instead of several per booking. Passenger
+// notifications for each committed batch go to a separate queue and never hold up the next batch.
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class ScheduleCancellationService {
+    private static final Logger log = LoggerFactory.getLogger(ScheduleCancellationService.class);
+    public static final int BATCH_SIZE = 500;
+    @Autowired
+    private ScheduleQueryRepository scheduleQueryRepository;
+    @Autowired
+    private ScheduleJdbcRepository scheduleJdbcRepository;
+    @Autowired
+    private BookingQueryRepository bookingQueryRepository;
+    @Autowired
+    private RefundJdbcRepository refundJdbcRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private SeatInventoryService seatInventoryService;
+    @Autowired
+    private StationPairIndex stationPairIndex;
+    @Autowired
+    private SseHub sseHub;
+    @Autowired
+    private OccupancyStore occupancyStore;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private JobRegistry jobRegistry;
+    private final Map<Long, Job> activeBySchedule = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+    // FIFO, so a job's completion marker runs after all of its notifications.
+    private ExecutorService notifier;
+    public record CancellationStatus(String id, long scheduleId, String state, int cancelled, int refundsCreated,
+                                     int notified, String error, Instant startedAt, Instant finishedAt) {}
+    @PostConstruct
+    public void start() {
+        executor = jobRegistry.worker("schedule-cancellation");
+        notifier = jobRegistry.worker("cancellation-notifier");
+    }
+    // Returns the running job if this schedule is already being cancelled.
+    public CancellationStatus submit(long scheduleId, String reason) {
+        ScheduleTime schedule = scheduleQueryRepository.findTimeById(scheduleId)
+                .orElseThrow(() -> new IllegalArgumentException("Schedule not found"));
+        Map<String, BigDecimal> prices = prices(scheduleQueryRepository.findPricingJson(scheduleId).orElse(null));
+        Job job = activeBySchedule.computeIfAbsent(scheduleId, id -> {
+            Job created = jobRegistry.register(new Job(id));
+            String refundReason = reason == null || reason.isBlank() ? "Schedule cancelled" : reason.trim();
+            executor.submit(() -> run(created, schedule.routeId(), prices, refundReason));
+            return created;
+        });
+        return job.toStatus();
+    }
+    public Optional<CancellationStatus> findJob(String id) {
+        return jobRegistry.find(id, Job.class).map(Job::toStatus);
+    }
+    private void run(Job job, Long routeId, Map<String, BigDecimal> prices, String reason) {
+        job.start();
+        try {
+            transactionTemplate.executeWithoutResult(status -> scheduleJdbcRepository.updateStatus(job.scheduleId, "CANCELLED"));
+            // Written behind Hibernate's back, so the second-level cache copy must go.
+            entityManagerFactory.getCache().evict(Schedule.class, job.scheduleId);
+            // Search and journey planning stop offering the schedule before its bookings are worked through.
+            stationPairIndex.refreshSchedules(routeId);
+            long after = 0;
+            while (true) {
+                long from = after;
+                List<ActiveBooking> batch = transactionTemplate.execute(status -> cancelBatch(job.scheduleId, from, prices, reason));
+                if (batch == null || batch.isEmpty()) {
+                    break;
+                }
+                after = batch.get(batch.size() - 1).bookingId();
+                job.cancelled.addAndGet(batch.size());
+                job.refunds.addAndGet((int) batch.stream().filter(b -> !b.refunded()).count());
+                notifier.submit(() -> notifyPassengers(job, batch));
+            }
+            seatInventoryService.evict(job.scheduleId);
+            occupancyStore.refresh(job.scheduleId);
+            sseHub.publish("schedules", "schedule-updated", "schedule:" + job.scheduleId,
+                    Map.of("scheduleId", job.scheduleId, "status", "CANCELLED"));
+            job.advance("NOTIFYING");
+            notifier.submit(() -> {
+                job.complete();
+                activeBySchedule.remove(job.scheduleId, job);
+            });
+            log.info("Schedule {} cancelled: {} bookings, {} refunds", job.scheduleId, job.cancelled.get(), job.refunds.get());
+        } catch (Exception e) {
+            log.error("Cancellation of schedule {} failed after {} bookings", job.scheduleId, job.cancelled.get(), e);
+            job.fail(e.getMessage());
+            activeBySchedule.remove(job.scheduleId, job);
+        }
+    }
+    private List<ActiveBooking> cancelBatch(long scheduleId, long after, Map<String, BigDecimal> prices, String reason) {
+        List<ActiveBooking> batch = refundJdbcRepository.lockActiveBookings(scheduleId, after, BATCH_SIZE);
+        if (batch.isEmpty()) {
+            return batch;
+        }
+        bookingQueryRepository.cancelAll(batch.stream().map(ActiveBooking::bookingId).toList());
+        refundJdbcRepository.insertPending(batch.stream()
+                .filter(b -> !b.refunded())
+                .map(b -> new NewRefund(b.bookingId(), prices.getOrDefault(b.ticketClass() != null ? b.ticketClass() : "", BigDecimal.ZERO)))
+                .toList(), reason, LocalDateTime.now());
+        return batch;
+    }
+    // Payment-side work stays with the PENDING refunds (processed through the refund admin flow);
+    // passengers are told over the live update stream.
+    private void notifyPassengers(Job job, List<ActiveBooking> batch) {
+        for (ActiveBooking booking : batch) {
+            sseHub.publishTo(booking.username(), SseHub.BOOKINGS_TOPIC, "booking-cancelled", "booking:" + booking.bookingId(),
+                    Map.of("bookingId", booking.bookingId(), "scheduleId", job.scheduleId, "status", "CANCELLED"));
+            job.notified.incrementAndGet();
+        }
+    }
+    private Map<String, BigDecimal> prices(String pricingJson) {
+        if (pricingJson == null || pricingJson.isBlank()) {
+            return Map.of();
+        }
+        try {
+            return objectMapper.readValue(pricingJson, new TypeReference<Map<String, BigDecimal>>() {});
+        } catch (JsonProcessingException e) {
+            // Refunds are still recorded, with a zero amount for staff to correct.
+            log.warn("Unreadable pricing on schedule: {}", e.getOriginalMessage());
+            return Map.of();
+        }
+    }
+    private static final class Job extends BackgroundJob {
+        private final long scheduleId;
+        private final AtomicInteger cancelled = new AtomicInteger();
+        private final AtomicInteger refunds = new AtomicInteger();
+        private final AtomicInteger notified = new AtomicInteger();
+        private Job(long scheduleId) {
+            this.scheduleId = scheduleId;
+        }
+        private CancellationStatus toStatus() {
+            return new CancellationStatus(getId(), scheduleId, getState(), cancelled.get(), refunds.get(), notified.get(),
+                    getError(), getStartedAt(), getFinishedAt());
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.raillink.service;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import io.micrometer.core.annotation.Timed;
+import com.raillink.config.MetricsConfig;
+import com.raillink.dto.NewSchedule;
+import com.raillink.model.Route;
+import com.raillink.model.Train;
+import com.raillink.repository.ScheduleJdbcRepository;
+import jakarta.annotation.PostConstruct;
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class ScheduleGenerationService {
+    // Ranges up to a month are written on the request thread; longer ones become background jobs.
+    public static final int SYNC_DAY_LIMIT = 31;
+    @Autowired
+    private ScheduleJdbcRepository scheduleJdbcRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private StationPairIndex stationPairIndex;
+    @Autowired
+    private JobRegistry jobRegistry;
+    private ExecutorService executor;
+    public record DailyTemplate(Train train, Route route, String scheduleName, String status, Integer delayMinutes,
+                                String pricingJson, LocalTime departureTime, LocalTime arrivalTime) {}
+    public record Instance(LocalDateTime departureDate, LocalDateTime arrivalDate) {}
+    public record JobStatus(String id, String state, int total, int completed, String error) {}
+    @PostConstruct
+    public void start() {
+        executor = jobRegistry.worker("schedule-generation");
+    }
+    public List<Instance> expand(DailyTemplate template, LocalDate start, LocalDate end) {
+        List<Instance> instances = new ArrayList<>((int) Math.max(0, ChronoUnit.DAYS.between(start, end) + 1));
+        for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+            LocalDateTime dep = date.atTime(template.departureTime());
+            LocalDateTime arr = date.atTime(template.arrivalTime());
+            // If arrival time is before departure time, it means the train arrives the next day
+            if (!arr.isAfter(dep)) {
+                arr = arr.plusDays(1);
+            }
+            instances.add(new Instance(dep, arr));
+        }
+        return instances;
+    }
+    public boolean runsInBackground(LocalDate start, LocalDate end) {
+        return ChronoUnit.DAYS.between(start, end) + 1 > SYNC_DAY_LIMIT;
+    }
+    public int generate(DailyTemplate template, LocalDate start, LocalDate end) {
+        List<Instance> instances = expand(template, start, end);
+        insert(template, instances, new AtomicInteger());
+        stationPairIndex.refreshSchedules(template.route().getId());
+        return instances.size();
+    }
+    public String submit(DailyTemplate template, LocalDate start, LocalDate end) {
+        List<Instance> instances = expand(template, start, end);
+        Job job = jobRegistry.register(new Job(instances.size()));
+        executor.submit(() -> {
+            job.start();
+            try {
+                insert(template, instances, job.completed);
+                stationPairIndex.refreshSchedules(template.route().getId());
+                job.complete();
+            } catch (Exception e) {
+                job.fail(e.getMessage());
+            }
+        });
+        return job.getId();
+    }
+    public Optional<JobStatus> findJob(String id) {
+        return jobRegistry.find(id, Job.class).map(Job::toStatus);
+    }
+    private void insert(DailyTemplate template, List<Instance> instances, AtomicInteger progress) {
+        List<NewSchedule> rows = new ArrayList<>(instances.size());
+        for (Instance instance : instances) {
+            rows.add(new NewSchedule(template.train().getId(), template.route().getId(), template.scheduleName(),
+                    template.status(), template.delayMinutes(), template.pricingJson(),
+                    instance.departureDate(), instance.arrivalDate()));
+        }
+        transactionTemplate.executeWithoutResult(status -> scheduleJdbcRepository.insertBatches(rows, progress));
+    }
+    private static final class Job extends BackgroundJob {
+        private final int total;
+        private final AtomicInteger completed = new AtomicInteger();
+        private Job(int total) {
+            this.total = total;
+        }
+        private JobStatus toStatus() {
+            return new JobStatus(getId(), getState(), total, completed.get(), getError());
+        }
+    }
+}
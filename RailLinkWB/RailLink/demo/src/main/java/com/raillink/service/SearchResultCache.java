@@ -0,0 +1,107 @@
+package com.raillink.service;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import com.raillink.dto.ScheduleMatch;
+import jakarta.annotation.PostConstruct;
+// Train search results keyed by query, valid for one StationPairIndex version. Any timetable
+// change bumps the version, so the whole generation is dropped at once instead of tracking
+// which station pairs a change touched. Within a generation, entries past maxEntries are evicted
+// in approximate LRU order (CLOCK): a hit only sets a flag on its entry, and eviction walks the
+// insertion queue, giving flagged entries a second pass and dropping the first unflagged one.
+@Service
+public class SearchResultCache {
+    @Autowired
+    private StationPairIndex stationPairIndex;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Value("${raillink.search.cache.max-entries:20000}")
+    private int maxEntries;
+    private final AtomicReference<Generation> generation = new AtomicReference<>(new Generation(-1));
+    private Counter hits;
+    private Counter misses;
+    private Counter invalidations;
+    public record Key(long originId, long destinationId, LocalDate date, long facilityMask, String travelClass) {}
+    private record Generation(long version, Map<Key, Entry> entries, Queue<Key> clock) {
+        Generation(long version) {
+            this(version, new ConcurrentHashMap<>(), new ConcurrentLinkedQueue<>());
+        }
+    }
+    private static final class Entry {
+        final List<ScheduleMatch> result;
+        volatile boolean used;
+        Entry(List<ScheduleMatch> result) {
+            this.result = result;
+        }
+    }
+    @PostConstruct
+    public void registerMetrics() {
+        hits = Counter.builder("raillink.search.cache").tag("result", "hit")
+                .description("Train search lookups answered from the result cache").register(meterRegistry);
+        misses = Counter.builder("raillink.search.cache").tag("result", "miss")
+                .description("Train search lookups computed from the station pair index").register(meterRegistry);
+        invalidations = Counter.builder("raillink.search.cache.invalidations")
+                .description("Result cache generations dropped after a timetable version change").register(meterRegistry);
+        Gauge.builder("raillink.search.cache.size", generation, g -> g.get().entries().size())
+                .description("Entries in the current result cache generation").register(meterRegistry);
+    }
+    public List<ScheduleMatch> get(Key key, Supplier<List<ScheduleMatch>> loader) {
+        long version = stationPairIndex.version();
+        Generation current = generation.updateAndGet(g -> g.version() >= version ? g : next(version));
+        Entry cached = current.entries().get(key);
+        if (cached != null && current.version() == version) {
+            if (!cached.used) {
+                cached.used = true;
+            }
+            hits.increment();
+            return cached.result;
+        }
+        misses.increment();
+        List<ScheduleMatch> result = List.copyOf(loader.get());
+        // The loader may already have seen a newer timetable; only results for this exact version are kept.
+        if (current.version() == version && stationPairIndex.version() == version) {
+            if (current.entries().putIfAbsent(key, new Entry(result)) == null) {
+                current.clock().offer(key);
+                if (current.entries().size() > maxEntries) {
+                    evict(current);
+                }
+            }
+        }
+        return result;
+    }
+    // Two passes over the queue at most: the first clears every flag it meets.
+    private static void evict(Generation current) {
+        for (int budget = 2 * current.entries().size(); budget > 0; budget--) {
+            Key candidate = current.clock().poll();
+            if (candidate == null) {
+                return;
+            }
+            Entry entry = current.entries().get(candidate);
+            if (entry == null) {
+                continue;
+            }
+            if (entry.used) {
+                entry.used = false;
+                current.clock().offer(candidate);
+            } else {
+                current.entries().remove(candidate);
+                return;
+            }
+        }
+    }
+    private Generation next(long version) {
+        invalidations.increment();
+        return new Generation(version);
+    }
+}
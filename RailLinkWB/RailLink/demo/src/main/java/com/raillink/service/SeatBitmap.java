@@ -0,0 +1,78 @@
+package com.raillink.service;
+import java.util.concurrent.atomic.AtomicLongArray;
+// Fixed-size free/taken bitmap for the seats of one class on one schedule.
+// Bit i set means seat index i is taken; all transitions are compare-and-set.
+public final class SeatBitmap {
+    private final int capacity;
+    private final AtomicLongArray words;
+    public SeatBitmap(int capacity) {
+        this.capacity = Math.max(0, capacity);
+        this.words = new AtomicLongArray((this.capacity + 63) >>> 6);
+    }
+    public int capacity() {
+        return capacity;
+    }
+    public boolean tryTake(int index) {
+        if (index < 0 || index >= capacity) {
+            return false;
+        }
+        int word = index >>> 6;
+        long mask = 1L << index;
+        while (true) {
+            long current = words.get(word);
+            if ((current & mask) != 0) {
+                return false;
+            }
+            if (words.compareAndSet(word, current, current | mask)) {
+                return true;
+            }
+        }
+    }
+    // Takes the lowest free seat, or returns -1 when the class is sold out.
+    public int takeAny() {
+        for (int word = 0; word < words.length(); word++) {
+            while (true) {
+                long current = words.get(word);
+                long free = ~current & validMask(word);
+                if (free == 0) {
+                    break;
+                }
+                long bit = Long.lowestOneBit(free);
+                if (words.compareAndSet(word, current, current | bit)) {
+                    return (word << 6) + Long.numberOfTrailingZeros(bit);
+                }
+            }
+        }
+        return -1;
+    }
+    public void release(int index) {
+        if (index < 0 || index >= capacity) {
+            return;
+        }
+        int word = index >>> 6;
+        long mask = 1L << index;
+        while (true) {
+            long current = words.get(word);
+            if ((current & mask) == 0 || words.compareAndSet(word, current, current & ~mask)) {
+                return;
+            }
+        }
+    }
+    public boolean isTaken(int index) {
+        return index >= 0 && index < capacity && (words.get(index >>> 6) & (1L << index)) != 0;
+    }
+    public int takenCount() {
+        int taken = 0;
+        for (int word = 0; word < words.length(); word++) {
+            taken += Long.bitCount(words.get(word));
+        }
+        return taken;
+    }
+    public int freeCount() {
+        return capacity - takenCount();
+    }
+    private long validMask(int word) {
+        int remaining = capacity - (word << 6);
+        return remaining >= 64 ? -1L : (1L << remaining) - 1;
+    }
+}
@@ -0,0 +1,344 @@
+package com.raillink.service;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import io.micrometer.core.annotation.Timed;
+import com.raillink.config.MetricsConfig;
+import com.raillink.dto.ClassCapacity;
+import com.raillink.dto.SeatAssignment;
+import com.raillink.model.Booking;
+import com.raillink.model.Schedule;
+import com.raillink.model.User;
+import com.raillink.repository.BookingQueryRepository;
+import com.raillink.repository.ScheduleQueryRepository;
+// Per-schedule seat bitmaps sized from Train.getClasses(). Seats are numbered 1..capacity
+// within a class and any other label is rejected, so every bookable seat is tracked. A request
+// without a class is given the class with the most free seats; there is no separate pool.
+// A seat taken by reserve() or hold() stays pending, owned by the thread that will write its
+// booking, until BookingChangeListener sees the commit or the caller releases it.
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class SeatInventoryService {
+    private static final Logger log = LoggerFactory.getLogger(SeatInventoryService.class);
+    // Inventories of schedules that left before this are not kept in memory.
+    private static final int RETAINED_DAYS = 1;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private BookingQueryRepository bookingQueryRepository;
+    @Autowired
+    private ScheduleQueryRepository scheduleQueryRepository;
+    private final Map<Long, Inventory> inventories = new ConcurrentHashMap<>();
+    private final Map<SeatKey, Thread> pending = new ConcurrentHashMap<>();
+    public record Seat(String ticketClass, String seatNumber) {}
+    private record SeatKey(long scheduleId, String ticketClass, int index) {}
+    public Booking book(User user, Schedule schedule, String seatNumber, String ticketClass) {
+        Seat seat = reserve(schedule.getId(), ticketClass, seatNumber);
+        try {
+            return bookingService.createBooking(user, schedule, seat.seatNumber(), seat.ticketClass());
+        } catch (RuntimeException e) {
+            release(schedule.getId(), seat.ticketClass(), seat.seatNumber());
+            throw e;
+        }
+    }
+    // Claims the requested seat, or the lowest free one, and returns it with the class it belongs to.
+    public Seat reserve(Long scheduleId, String ticketClass, String seatNumber) {
+        Seat seat = take(scheduleId, ticketClass, seatNumber);
+        // Departed schedules are loaded per call and have nothing to keep pending.
+        if (inventories.containsKey(scheduleId)) {
+            pending.put(new SeatKey(scheduleId, seat.ticketClass(), seatIndex(seat.seatNumber())), Thread.currentThread());
+        }
+        return seat;
+    }
+    // Called before a booking row is written. A seat this thread reserved is left as is; any other
+    // seat is taken here, or the write is rejected so the transaction rolls back instead of selling
+    // the seat twice. Returns the seat taken here, which the caller releases if the write rolls back.
+    public Seat hold(Long scheduleId, String ticketClass, String seatNumber) {
+        Inventory inventory = inventory(scheduleId);
+        if (inventory == null || inventories.get(scheduleId) != inventory || seatNumber == null || seatNumber.isBlank()) {
+            return null;
+        }
+        int index = seatIndex(seatNumber);
+        for (String candidate : candidates(inventory, ticketClass)) {
+            if (pending.get(new SeatKey(scheduleId, candidate, index)) == Thread.currentThread()) {
+                return null;
+            }
+        }
+        return reserve(scheduleId, ticketClass, seatNumber);
+    }
+    private Seat take(Long scheduleId, String ticketClass, String seatNumber) {
+        Inventory inventory = inventory(scheduleId);
+        if (inventory == null) {
+            throw new RuntimeException("Schedule is not open for booking");
+        }
+        boolean anySeat = seatNumber == null || seatNumber.isBlank();
+        if (ticketClass == null || ticketClass.isBlank()) {
+            Seat seat = anySeat ? inventory.takeAnyClass() : inventory.takeInAnyClass(seatNumber);
+            if (seat == null) {
+                throw new RuntimeException(anySeat ? "No seats available" : "Seat " + seatNumber + " is not available");
+            }
+            return seat;
+        }
+        String key = ticketClass.trim();
+        SeatBitmap seats = inventory.classes.get(key);
+        if (seats == null) {
+            throw new RuntimeException("Ticket class not available on this schedule: " + ticketClass);
+        }
+        if (anySeat) {
+            int index = seats.takeAny();
+            if (index < 0) {
+                throw new RuntimeException("No seats available in " + key);
+            }
+            return new Seat(key, seatLabel(index));
+        }
+        int index = seatIndex(seatNumber);
+        if (index < 0 || index >= seats.capacity()) {
+            throw new RuntimeException("Seat " + seatNumber + " does not exist in " + key + " (seats 1-" + seats.capacity() + ")");
+        }
+        if (!seats.tryTake(index)) {
+            throw new RuntimeException("Seat " + seatNumber + " is already booked");
+        }
+        return new Seat(key, seatLabel(index));
+    }
+    // Seats of class-less bookings made before classes were assigned cannot be told apart and
+    // stay taken until the schedule is reloaded.
+    public void release(Long scheduleId, String ticketClass, String seatNumber) {
+        Inventory inventory = scheduleId != null ? inventories.get(scheduleId) : null;
+        if (inventory == null || ticketClass == null || ticketClass.isBlank()) {
+            return;
+        }
+        int index = seatIndex(seatNumber);
+        pending.remove(new SeatKey(scheduleId, ticketClass.trim(), index));
+        SeatBitmap seats = inventory.classes.get(ticketClass.trim());
+        if (seats != null) {
+            seats.release(index);
+        }
+    }
+    public void release(Booking booking) {
+        if (booking != null && booking.getSchedule() != null) {
+            release(booking.getSchedule().getId(), booking.getTicketClass(), booking.getSeatNumber());
+        }
+    }
+    // Records a committed booking's seat. The committing thread's own pending seat only stops
+    // being pending; any other seat is taken now. Returns false when another booking holds the
+    // seat (or it is not a seat of the layout).
+    public boolean claim(Long scheduleId, String ticketClass, String seatNumber) {
+        Inventory inventory = scheduleId != null ? inventories.get(scheduleId) : null;
+        if (inventory == null) {
+            return true;
+        }
+        int index = seatIndex(seatNumber);
+        for (String candidate : candidates(inventory, ticketClass)) {
+            if (pending.remove(new SeatKey(scheduleId, candidate, index), Thread.currentThread())) {
+                return true;
+            }
+        }
+        return inventory.take(ticketClass, seatNumber);
+    }
+    public boolean isTaken(Long scheduleId, String ticketClass, String seatNumber) {
+        Inventory inventory = inventory(scheduleId);
+        SeatBitmap seats = inventory != null && ticketClass != null ? inventory.classes.get(ticketClass.trim()) : null;
+        return seats != null && seats.isTaken(seatIndex(seatNumber));
+    }
+    public Map<String, Integer> freeSeats(Long scheduleId) {
+        Inventory inventory = inventory(scheduleId);
+        if (inventory == null) {
+            return Map.of();
+        }
+        Map<String, Integer> free = new HashMap<>();
+        inventory.classes.forEach((ticketClass, seats) -> free.put(ticketClass, seats.freeCount()));
+        return free;
+    }
+    public void evict(Long scheduleId) {
+        inventories.remove(scheduleId);
+        pending.keySet().removeIf(key -> key.scheduleId() == scheduleId);
+    }
+    // Loads every upcoming schedule up front. Inventories already in memory are kept: they have
+    // tracked every reservation since they were loaded, while the rows read here miss seats whose
+    // bookings are not committed yet.
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        LocalDateTime from = LocalDateTime.now().minusDays(RETAINED_DAYS);
+        Map<Long, Inventory> loaded = new HashMap<>();
+        for (ClassCapacity capacity : scheduleQueryRepository.findUpcomingBookableClassCapacities(from)) {
+            loaded.computeIfAbsent(capacity.scheduleId(), id -> new Inventory(capacity.departureDate())).addClass(capacity);
+        }
+        Map<Long, List<SeatAssignment>> assignments = new HashMap<>();
+        for (SeatAssignment assignment : bookingQueryRepository.findUpcomingSeatAssignments(from)) {
+            assignments.computeIfAbsent(assignment.scheduleId(), id -> new ArrayList<>()).add(assignment);
+        }
+        loaded.forEach((scheduleId, inventory) -> {
+            if (!inventory.classes.isEmpty()) {
+                inventory.takeCommitted(scheduleId, assignments.getOrDefault(scheduleId, List.of()));
+                inventories.putIfAbsent(scheduleId, inventory);
+            }
+        });
+        evictDeparted();
+    }
+    @Scheduled(fixedDelay = 3_600_000)
+    public void evictDeparted() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(RETAINED_DAYS);
+        inventories.values().removeIf(inventory -> inventory.departedBefore(cutoff));
+        pending.keySet().removeIf(key -> !inventories.containsKey(key.scheduleId()));
+    }
+    // Unknown and cancelled schedules have no inventory and are not cached; neither are
+    // departed ones, which are only read for edits to old bookings.
+    private Inventory inventory(Long scheduleId) {
+        if (scheduleId == null) {
+            return null;
+        }
+        Inventory inventory = inventories.get(scheduleId);
+        if (inventory != null) {
+            return inventory;
+        }
+        Inventory loaded = load(scheduleId);
+        if (loaded == null || loaded.departedBefore(LocalDateTime.now().minusDays(RETAINED_DAYS))) {
+            return loaded;
+        }
+        // A concurrent load may have won; its bitmaps are the ones reservations went to.
+        Inventory previous = inventories.putIfAbsent(scheduleId, loaded);
+        return previous != null ? previous : loaded;
+    }
+    private Inventory load(Long scheduleId) {
+        List<ClassCapacity> capacities = scheduleQueryRepository.findBookableClassCapacities(scheduleId);
+        if (capacities.isEmpty()) {
+            return null;
+        }
+        Inventory inventory = new Inventory(capacities.get(0).departureDate());
+        capacities.forEach(inventory::addClass);
+        if (inventory.classes.isEmpty()) {
+            return null;
+        }
+        inventory.takeCommitted(scheduleId, bookingQueryRepository.findSeatAssignments(scheduleId));
+        return inventory;
+    }
+    private static Collection<String> candidates(Inventory inventory, String ticketClass) {
+        return ticketClass == null || ticketClass.isBlank() ? inventory.classes.keySet() : List.of(ticketClass.trim());
+    }
+    static int seatIndex(String seatNumber) {
+        if (seatNumber == null) {
+            return -1;
+        }
+        String value = seatNumber.trim();
+        if (value.isEmpty() || value.length() > 9) {
+            return -1;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (!Character.isDigit(value.charAt(i))) {
+                return -1;
+            }
+        }
+        return Integer.parseInt(value) - 1;
+    }
+    static String seatLabel(int index) {
+        return String.valueOf(index + 1);
+    }
+    // Classes are kept in name order so class-less lookups are deterministic. The map is filled
+    // before the inventory is published and only the bitmaps change afterwards.
+    private static final class Inventory {
+        private final LocalDateTime departure;
+        private final Map<String, SeatBitmap> classes = new TreeMap<>();
+        private Inventory(LocalDateTime departure) {
+            this.departure = departure;
+        }
+        private void addClass(ClassCapacity capacity) {
+            if (capacity.ticketClass() != null && !capacity.ticketClass().isBlank()
+                    && capacity.capacity() != null && capacity.capacity() > 0) {
+                classes.put(capacity.ticketClass().trim(), new SeatBitmap(capacity.capacity()));
+            }
+        }
+        private boolean departedBefore(LocalDateTime cutoff) {
+            return departure != null && departure.isBefore(cutoff);
+        }
+        // Rows on labels outside 1..capacity come from before seats were numbered. Each still uses
+        // up a seat of its class, the highest-numbered free one once every numbered row is placed,
+        // so the class cannot be oversold; that seat stays taken until the schedule is reloaded.
+        private void takeCommitted(Long scheduleId, List<SeatAssignment> assignments) {
+            List<SeatAssignment> legacy = new ArrayList<>();
+            for (SeatAssignment assignment : assignments) {
+                if (seatIndex(assignment.seatNumber()) < 0) {
+                    legacy.add(assignment);
+                } else {
+                    take(assignment.ticketClass(), assignment.seatNumber());
+                }
+            }
+            if (legacy.isEmpty()) {
+                return;
+            }
+            int unplaced = 0;
+            for (SeatAssignment assignment : legacy) {
+                if (!takeLast(assignment.ticketClass())) {
+                    unplaced++;
+                }
+            }
+            log.warn("Schedule {} has {} bookings on seat labels outside the layout ({}); they hold {} numbered seats until renumbered",
+                    scheduleId, legacy.size(), legacy.stream().map(SeatAssignment::seatNumber).distinct().limit(10).toList(),
+                    legacy.size() - unplaced);
+        }
+        private boolean takeLast(String ticketClass) {
+            boolean anyClass = ticketClass == null || ticketClass.isBlank();
+            SeatBitmap only = anyClass ? null : classes.get(ticketClass.trim());
+            if (!anyClass && only == null) {
+                return false;
+            }
+            for (SeatBitmap seats : anyClass ? classes.values() : List.of(only)) {
+                for (int index = seats.capacity() - 1; index >= 0; index--) {
+                    if (seats.tryTake(index)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+        // Rows without a class take the seat in the first class where it is still free.
+        private boolean take(String ticketClass, String seatNumber) {
+            int index = seatIndex(seatNumber);
+            if (ticketClass != null && !ticketClass.isBlank()) {
+                SeatBitmap seats = classes.get(ticketClass.trim());
+                if (seats == null || !seats.tryTake(index)) {
+                    log.debug("Seat {} in {} is not free in the layout", seatNumber, ticketClass);
+                    return false;
+                }
+                return true;
+            }
+            return takeInAnyClass(seatNumber) != null;
+        }
+        private Seat takeInAnyClass(String seatNumber) {
+            int index = seatIndex(seatNumber);
+            for (Map.Entry<String, SeatBitmap> entry : classes.entrySet()) {
+                if (entry.getValue().tryTake(index)) {
+                    return new Seat(entry.getKey(), seatLabel(index));
+                }
+            }
+            return null;
+        }
+        // Most free seats first; the next class is tried when another request empties this one.
+        private Seat takeAnyClass() {
+            List<Map.Entry<String, SeatBitmap>> byFree = classes.entrySet().stream()
+                    .sorted(Comparator.comparingInt((Map.Entry<String, SeatBitmap> e) -> e.getValue().freeCount()).reversed())
+                    .toList();
+            for (Map.Entry<String, SeatBitmap> entry : byFree) {
+                int index = entry.getValue().takeAny();
+                if (index >= 0) {
+                    return new Seat(entry.getKey(), seatLabel(index));
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.raillink.service;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+// Fan-out hub for server-sent events. Each event is rendered once and the same frames are
+// handed to every subscriber. Subscribers drain their own bounded queue on a small shared
+// writer pool, so one slow connection never holds up the others: when its queue is full
+// the oldest pending event is dropped, and events with the same key replace each other.
+// Writes block a pool thread, so a send that has not finished within SEND_TIMEOUT_MILLIS gets
+// its subscriber evicted and the writer interrupted. Events published to a user reach only
+// that user's own connections.
+@Service
+public class SseHub {
+    // Carries events about one passenger's bookings; only published with publishTo.
+    public static final String BOOKINGS_TOPIC = "bookings";
+    public static final long EMITTER_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+    private static final int QUEUE_CAPACITY = 64;
+    private static final int WRITER_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final long SEND_TIMEOUT_MILLIS = 10_000;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    private final Map<String, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger ids = new AtomicInteger();
+    private final AtomicLong eventIds = new AtomicLong();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong lastFanOutNanos = new AtomicLong();
+    private final AtomicLong maxFanOutNanos = new AtomicLong();
+    private Timer fanOutTimer;
+    private final ExecutorService writers = Executors.newFixedThreadPool(WRITER_THREADS, r -> {
+        Thread t = new Thread(r, "sse-writer");
+        t.setDaemon(true);
+        return t;
+    });
+    public record Stats(int subscribers, long published, long delivered, long dropped, long evicted,
+                        double lastFanOutMillis, double maxFanOutMillis) {}
+    private record Event(String topic, String owner, String key, Set<ResponseBodyEmitter.DataWithMediaType> frames, long publishedAt) {}
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("raillink.sse.subscribers", subscribers, Map::size)
+                .description("Open server-sent event connections")
+                .register(meterRegistry);
+        FunctionCounter.builder("raillink.sse.published", published, AtomicLong::get)
+                .description("Events published to the hub")
+                .register(meterRegistry);
+        FunctionCounter.builder("raillink.sse.delivered", delivered, AtomicLong::get)
+                .description("Events written to a subscriber")
+                .register(meterRegistry);
+        FunctionCounter.builder("raillink.sse.dropped", dropped, AtomicLong::get)
+                .description("Events dropped or coalesced for slow subscribers")
+                .register(meterRegistry);
+        FunctionCounter.builder("raillink.sse.evicted", evicted, AtomicLong::get)
+                .description("Subscribers disconnected after a send timed out")
+                .register(meterRegistry);
+        fanOutTimer = Timer.builder("raillink.sse.fanout")
+                .description("Time from publishing an event until every subscriber has written or dropped it")
+                .register(meterRegistry);
+    }
+    // username is null for anonymous subscribers, who only receive events published to everyone.
+    public SseEmitter subscribe(Set<String> topics, String username) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MILLIS);
+        String id = "sub-" + ids.incrementAndGet();
+        Subscriber subscriber = new Subscriber(id, emitter, topics == null || topics.isEmpty() ? null : Set.copyOf(topics), username);
+        subscribers.put(id, subscriber);
+        emitter.onCompletion(() -> subscribers.remove(id));
+        emitter.onTimeout(() -> subscribers.remove(id));
+        emitter.onError(e -> subscribers.remove(id));
+        return emitter;
+    }
+    // Publishes an object serialized to JSON once. A non-null key coalesces pending events
+    // with the same key for slow subscribers (e.g. "schedule:42" keeps only the latest update).
+    public void publish(String topic, String eventName, String key, Object payload) {
+        publishTo(null, topic, eventName, key, payload);
+    }
+    // Same as publish, but only delivered to connections of the given user; a null user reaches everyone.
+    public void publishTo(String username, String topic, String eventName, String key, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not serialize SSE payload: " + e.getMessage(), e);
+        }
+        SseEmitter.SseEventBuilder builder = SseEmitter.event()
+                .id(Long.toString(eventIds.incrementAndGet()))
+                .name(eventName)
+                .data(json);
+        published.incrementAndGet();
+        enqueueAll(new Event(topic, username, key, builder.build(), System.nanoTime()));
+    }
+    @Scheduled(fixedRate = 15_000)
+    public void heartbeat() {
+        enqueueAll(new Event(null, null, "heartbeat", SseEmitter.event().comment("heartbeat").build(), System.nanoTime()));
+    }
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+    public Stats stats() {
+        return new Stats(subscribers.size(), published.get(), delivered.get(), dropped.get(), evicted.get(),
+                lastFanOutNanos.get() / 1_000_000.0, maxFanOutNanos.get() / 1_000_000.0);
+    }
+    @Scheduled(fixedDelay = 1_000)
+    public void evictSlowSubscribers() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers.values()) {
+            subscriber.interruptIfStuck(now);
+        }
+    }
+    @PreDestroy
+    public void shutdown() {
+        writers.shutdownNow();
+        subscribers.values().forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+    private void enqueueAll(Event event) {
+        // Starts at one so fan-out is not recorded before every subscriber has been offered the event.
+        AtomicInteger remaining = new AtomicInteger(1);
+        for (Subscriber subscriber : subscribers.values()) {
+            if (subscriber.accepts(event)) {
+                remaining.incrementAndGet();
+                subscriber.offer(event, remaining);
+            }
+        }
+        if (remaining.decrementAndGet() == 0) {
+            recordFanOut(event);
+        }
+    }
+    private void recordFanOut(Event event) {
+        long elapsed = System.nanoTime() - event.publishedAt();
+        lastFanOutNanos.set(elapsed);
+        maxFanOutNanos.accumulateAndGet(elapsed, Math::max);
+        if (fanOutTimer != null) {
+            fanOutTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        }
+    }
+    private final class Subscriber {
+        private final String id;
+        private final SseEmitter emitter;
+        private final Set<String> topics;
+        private final String username;
+        private final LinkedHashMap<Object, Pending> queue = new LinkedHashMap<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private long sequence;
+        // Guards the in-flight send below so a writer is only interrupted while it is still
+        // sending to this subscriber, never after it has moved on.
+        private final Object sending = new Object();
+        private Thread writer;
+        private long sendStartedAt;
+        private boolean timedOut;
+        private Subscriber(String id, SseEmitter emitter, Set<String> topics, String username) {
+            this.id = id;
+            this.emitter = emitter;
+            this.topics = topics;
+            this.username = username;
+        }
+        private boolean accepts(Event event) {
+            if (event.owner() != null && !event.owner().equals(username)) {
+                return false;
+            }
+            return event.topic() == null || topics == null || topics.contains(event.topic());
+        }
+        private void offer(Event event, AtomicInteger remaining) {
+            synchronized (queue) {
+                Object slot = event.key() != null ? event.key() : sequence++;
+                Pending replaced = queue.remove(slot);
+                if (replaced != null) {
+                    replaced.skip();
+                    dropped.incrementAndGet();
+                } else if (queue.size() >= QUEUE_CAPACITY) {
+                    Iterator<Pending> oldest = queue.values().iterator();
+                    oldest.next().skip();
+                    oldest.remove();
+                    dropped.incrementAndGet();
+                }
+                queue.put(slot, new Pending(event, remaining));
+            }
+            if (draining.compareAndSet(false, true)) {
+                writers.execute(this::drain);
+            }
+        }
+        private void drain() {
+            while (true) {
+                Pending next;
+                synchronized (queue) {
+                    Iterator<Pending> it = queue.values().iterator();
+                    if (!it.hasNext()) {
+                        draining.set(false);
+                        return;
+                    }
+                    next = it.next();
+                    it.remove();
+                }
+                boolean sent = false;
+                synchronized (sending) {
+                    writer = Thread.currentThread();
+                    sendStartedAt = System.nanoTime();
+                }
+                try {
+                    emitter.send(next.event.frames());
+                    sent = true;
+                } catch (IOException | IllegalStateException e) {
+                    // Closed below; a timed-out send usually ends here once interrupted.
+                } finally {
+                    synchronized (sending) {
+                        writer = null;
+                    }
+                }
+                if (timedOut) {
+                    // Clears an interrupt that landed after the write returned.
+                    Thread.interrupted();
+                    sent = false;
+                }
+                if (!sent) {
+                    next.skip();
+                    close();
+                    return;
+                }
+                delivered.incrementAndGet();
+                next.done();
+            }
+        }
+        private void interruptIfStuck(long now) {
+            synchronized (sending) {
+                if (writer == null || timedOut || now - sendStartedAt < TimeUnit.MILLISECONDS.toNanos(SEND_TIMEOUT_MILLIS)) {
+                    return;
+                }
+                timedOut = true;
+                writer.interrupt();
+            }
+            evicted.incrementAndGet();
+            subscribers.remove(id);
+            try {
+                emitter.completeWithError(new TimeoutException("SSE send exceeded " + SEND_TIMEOUT_MILLIS + " ms"));
+            } catch (Exception ignored) {}
+        }
+        private void close() {
+            subscribers.remove(id);
+            synchronized (queue) {
+                queue.values().forEach(Pending::skip);
+                queue.clear();
+            }
+            try {
+                emitter.complete();
+            } catch (Exception ignored) {}
+        }
+    }
+    private final class Pending {
+        private final Event event;
+        private final AtomicInteger remaining;
+        private Pending(Event event, AtomicInteger remaining) {
+            this.event = event;
+            this.remaining = remaining;
+        }
+        private void done() {
+            countDown();
+        }
+        // Dropped events still count towards fan-out, or it would never be recorded once any
+        // subscriber skipped one.
+        private void skip() {
+            countDown();
+        }
+        private void countDown() {
+            if (remaining.decrementAndGet() == 0) {
+                recordFanOut(event);
+            }
+        }
+    }
+}
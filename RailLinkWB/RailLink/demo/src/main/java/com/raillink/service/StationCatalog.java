@@ -0,0 +1,151 @@
+package com.raillink.service;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import com.raillink.model.Facility;
+import com.raillink.model.Station;
+import com.raillink.repository.StationRepository;
+// In-memory view of the active (non-archived) stations, indexed by id, name and facility.
+// Readers get an immutable snapshot; writers replace it copy-on-write.
+@Component
+public class StationCatalog {
+    @Autowired
+    private StationRepository stationRepository;
+    // Guards snapshot replacement: reloads and single-station put/remove.
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Snapshot snapshot;
+    public List<Station> all() {
+        return snapshot().stations();
+    }
+    public Optional<Station> findById(Long id) {
+        return id == null ? Optional.empty() : Optional.ofNullable(snapshot().byId().get(id));
+    }
+    public Optional<Station> findByName(String name) {
+        return name == null ? Optional.empty() : Optional.ofNullable(snapshot().byName().get(name));
+    }
+    public int size() {
+        return snapshot().stations().size();
+    }
+    // Stations having every facility in all and at least one in any (either set may be empty).
+    public List<Station> findByFacilities(Set<Facility> all, Set<Facility> any) {
+        Snapshot current = snapshot();
+        int size = current.stations().size();
+        BitSet matches = new BitSet(size);
+        matches.set(0, size);
+        for (Facility facility : all) {
+            matches.and(current.byFacility()[facility.ordinal()]);
+        }
+        if (!any.isEmpty()) {
+            BitSet anyMatches = new BitSet(size);
+            for (Facility facility : any) {
+                anyMatches.or(current.byFacility()[facility.ordinal()]);
+            }
+            matches.and(anyMatches);
+        }
+        List<Station> result = new ArrayList<>(matches.cardinality());
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+            result.add(current.stations().get(i));
+        }
+        return result;
+    }
+    public boolean hasFacilities(Long stationId, long requiredMask) {
+        if (requiredMask == 0) {
+            return true;
+        }
+        Station station = stationId == null ? null : snapshot().byId().get(stationId);
+        return station != null && station.hasFacilities(requiredMask);
+    }
+    public void put(Station station) {
+        lock.lock();
+        try {
+            if (station == null || station.getId() == null) {
+                return;
+            }
+            if (station.isArchived()) {
+                remove(station.getId());
+                return;
+            }
+            Map<Long, Station> byId = new HashMap<>(snapshot().byId());
+            byId.put(station.getId(), station);
+            snapshot = Snapshot.of(byId.values());
+        } finally {
+            lock.unlock();
+        }
+    }
+    public void remove(Long id) {
+        lock.lock();
+        try {
+            Snapshot current = snapshot();
+            if (id == null || !current.byId().containsKey(id)) {
+                return;
+            }
+            Map<Long, Station> byId = new HashMap<>(current.byId());
+            byId.remove(id);
+            snapshot = Snapshot.of(byId.values());
+        } finally {
+            lock.unlock();
+        }
+    }
+    public void reload() {
+        lock.lock();
+        try {
+            snapshot = Snapshot.of(stationRepository.findByArchivedFalseOrderByIdAsc());
+        } finally {
+            lock.unlock();
+        }
+    }
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            lock.lock();
+            try {
+                if (snapshot == null) {
+                    reload();
+                }
+                current = snapshot;
+            } finally {
+                lock.unlock();
+            }
+        }
+        return current;
+    }
+    private record Snapshot(List<Station> stations, Map<Long, Station> byId, Map<String, Station> byName,
+                            BitSet[] byFacility) {
+        static Snapshot of(Iterable<Station> source) {
+            List<Station> stations = new ArrayList<>();
+            Map<Long, Station> byId = new HashMap<>();
+            Map<String, Station> byName = new HashMap<>();
+            for (Station station : source) {
+                stations.add(station);
+                byId.put(station.getId(), station);
+                byName.put(station.getName(), station);
+            }
+            stations.sort((s1, s2) -> s1.getId().compareTo(s2.getId()));
+            Facility[] facilities = Facility.values();
+            BitSet[] byFacility = new BitSet[facilities.length];
+            for (Facility facility : facilities) {
+                byFacility[facility.ordinal()] = new BitSet(stations.size());
+            }
+            for (int i = 0; i < stations.size(); i++) {
+                long mask = stations.get(i).getFacilityMask();
+                for (Facility facility : facilities) {
+                    if ((mask & facility.bit()) != 0) {
+                        byFacility[facility.ordinal()].set(i);
+                    }
+                }
+            }
+            return new Snapshot(Collections.unmodifiableList(stations),
+                    Collections.unmodifiableMap(byId),
+                    Collections.unmodifiableMap(byName),
+                    byFacility);
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.raillink.service;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import com.raillink.dto.ScheduleMatch;
+import com.raillink.dto.ScheduleTime;
+import com.raillink.repository.ScheduleQueryRepository;
+// Maps every (origin, destination) station pair to the routes that visit origin before
+// destination, plus each route's running (not cancelled) schedules sorted by departure. Built
+// from route_stops once, then refreshed one route at a time when routes or schedules are saved.
+// Only schedules that can still reach a stop today are kept; older ones are pruned nightly.
+@Service
+public class StationPairIndex {
+    // Schedules that left up to this long before the searched day may reach the origin stop on it.
+    private static final Duration LONGEST_TRIP = Duration.ofHours(48);
+    private static final Comparator<ScheduleTime> BY_DEPARTURE = Comparator.comparing(ScheduleTime::departureDate);
+    @Autowired
+    private RouteStopService routeStopService;
+    @Autowired
+    private ScheduleQueryRepository scheduleQueryRepository;
+    private final AtomicLong versions = new AtomicLong();
+    // Guards snapshot replacement: full reloads, route and schedule refreshes, touch().
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Snapshot snapshot;
+    public record RouteLeg(Long routeId, int originStop, int destinationStop) {}
+    public record StopDeparture(long scheduleId, LocalDateTime departure) {}
+    // A stop on a route that trains leave from, i.e. any stop but the last.
+    private record DepartureStop(Long routeId, int stop) {}
+    // Consistent read-only view of stop sequences and schedule times, stamped with a version
+    // that changes on every refresh.
+    public record TimetableView(long version, Map<Long, long[]> stopsByRoute, Map<Long, List<ScheduleTime>> schedulesByRoute) {}
+    public TimetableView timetable() {
+        Snapshot current = snapshot();
+        return new TimetableView(current.version(), Collections.unmodifiableMap(current.stopsByRoute()),
+                Collections.unmodifiableMap(current.schedulesByRoute()));
+    }
+    public long version() {
+        return snapshot().version();
+    }
+    public List<RouteLeg> findRoutes(long originId, long destinationId) {
+        return snapshot().pairs().getOrDefault(pairKey(originId, destinationId), List.of());
+    }
+    // Matches on the time the train leaves the origin stop, interpolated along the route the same
+    // way as ConnectionTimetable, so a train that starts late the evening before can still match.
+    public List<ScheduleMatch> findSchedules(long originId, long destinationId, LocalDate date) {
+        Snapshot current = snapshot();
+        List<RouteLeg> legs = current.pairs().get(pairKey(originId, destinationId));
+        if (legs == null) {
+            return List.of();
+        }
+        LocalDateTime from = date.atStartOfDay();
+        LocalDateTime to = from.plusDays(1);
+        List<ScheduleMatch> matches = new ArrayList<>();
+        for (RouteLeg leg : legs) {
+            List<ScheduleTime> schedules = current.schedulesByRoute().getOrDefault(leg.routeId(), List.of());
+            int stopCount = current.stopsByRoute().get(leg.routeId()).length;
+            for (int i = firstDepartureAtOrAfter(schedules, from.minus(LONGEST_TRIP)); i < schedules.size(); i++) {
+                ScheduleTime schedule = schedules.get(i);
+                if (!schedule.departureDate().isBefore(to)) {
+                    break;
+                }
+                long[] times = ConnectionTimetable.stopTimes(stopCount, schedule.departureDate(),
+                        schedule.arrivalDate() != null ? schedule.arrivalDate() : schedule.departureDate());
+                LocalDateTime boarding = ConnectionTimetable.toDateTime(times[leg.originStop()]);
+                if (boarding.isBefore(from) || !boarding.isBefore(to)) {
+                    continue;
+                }
+                matches.add(new ScheduleMatch(schedule.scheduleId(), leg.routeId(), leg.originStop(), leg.destinationStop(),
+                        schedule.departureDate(), schedule.arrivalDate(),
+                        boarding, ConnectionTimetable.toDateTime(times[leg.destinationStop()])));
+            }
+        }
+        matches.sort(Comparator.comparing(ScheduleMatch::originDeparture));
+        return matches;
+    }
+    // Running schedules leaving the station in [from, to), at the same interpolated stop times as
+    // findSchedules. A route's last stop has no departure.
+    public List<StopDeparture> departuresFrom(long stationId, LocalDateTime from, LocalDateTime to) {
+        Snapshot current = snapshot();
+        List<StopDeparture> departures = new ArrayList<>();
+        for (DepartureStop at : current.departureStops().getOrDefault(stationId, List.of())) {
+            long[] stops = current.stopsByRoute().get(at.routeId());
+            List<ScheduleTime> schedules = current.schedulesByRoute().getOrDefault(at.routeId(), List.of());
+            for (int i = firstDepartureAtOrAfter(schedules, from.minus(LONGEST_TRIP)); i < schedules.size(); i++) {
+                ScheduleTime schedule = schedules.get(i);
+                if (!schedule.departureDate().isBefore(to)) {
+                    break;
+                }
+                long[] times = ConnectionTimetable.stopTimes(stops.length, schedule.departureDate(),
+                        schedule.arrivalDate() != null ? schedule.arrivalDate() : schedule.departureDate());
+                LocalDateTime departure = ConnectionTimetable.toDateTime(times[at.stop()]);
+                if (!departure.isBefore(from) && departure.isBefore(to)) {
+                    departures.add(new StopDeparture(schedule.scheduleId(), departure));
+                }
+            }
+        }
+        departures.sort(Comparator.comparing(StopDeparture::departure));
+        return departures;
+    }
+    public long[] stopsOf(Long routeId) {
+        long[] stops = snapshot().stopsByRoute().get(routeId);
+        return stops != null ? stops : new long[0];
+    }
+    public void refreshRoute(Long routeId) {
+        lock.lock();
+        try {
+            Snapshot current = snapshot();
+            Map<Long, long[]> stopsByRoute = new HashMap<>(current.stopsByRoute());
+            Map<Long, List<RouteLeg>> pairs = new HashMap<>(current.pairs());
+            Map<Long, List<DepartureStop>> departureStops = new HashMap<>(current.departureStops());
+            Map<Long, List<ScheduleTime>> schedulesByRoute = new HashMap<>(current.schedulesByRoute());
+            long[] oldStops = stopsByRoute.remove(routeId);
+            if (oldStops != null) {
+                removeLegs(pairs, routeId, oldStops);
+                removeDepartureStops(departureStops, routeId, oldStops);
+            }
+            schedulesByRoute.remove(routeId);
+            long[] stops = routeStopService.stopsOf(routeId);
+            if (stops.length > 0) {
+                stopsByRoute.put(routeId, stops);
+                addLegs(pairs, routeId, stops);
+                addDepartureStops(departureStops, routeId, stops);
+                schedulesByRoute.put(routeId, loadSchedules(routeId));
+            }
+            snapshot = new Snapshot(versions.incrementAndGet(), stopsByRoute, pairs, departureStops, schedulesByRoute);
+        } finally {
+            lock.unlock();
+        }
+    }
+    public void refreshSchedules(Long routeId) {
+        lock.lock();
+        try {
+            Snapshot current = snapshot();
+            Map<Long, List<ScheduleTime>> schedulesByRoute = new HashMap<>(current.schedulesByRoute());
+            schedulesByRoute.put(routeId, loadSchedules(routeId));
+            snapshot = current.withSchedules(versions.incrementAndGet(), schedulesByRoute);
+        } finally {
+            lock.unlock();
+        }
+    }
+    // Republishes the same data under a new version, for changes outside the index that still
+    // alter search results (train classes, station facilities).
+    public void touch() {
+        lock.lock();
+        try {
+            Snapshot current = snapshot();
+            snapshot = current.withSchedules(versions.incrementAndGet(), current.schedulesByRoute());
+        } finally {
+            lock.unlock();
+        }
+    }
+    // Runs after RouteStopService.migrateLegacyPaths (order 0): searches are served before
+    // ApplicationReadyEvent, and an index built then would miss the migrated routes.
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(1)
+    public void reload() {
+        lock.lock();
+        try {
+            Map<Long, long[]> stopsByRoute = routeStopService.allStops();
+            Map<Long, List<RouteLeg>> pairs = new HashMap<>();
+            Map<Long, List<DepartureStop>> departureStops = new HashMap<>();
+            stopsByRoute.forEach((routeId, stops) -> {
+                addLegs(pairs, routeId, stops);
+                addDepartureStops(departureStops, routeId, stops);
+            });
+            Map<Long, List<ScheduleTime>> grouped = new HashMap<>();
+            for (ScheduleTime schedule : scheduleQueryRepository.findRunningTimes(cutoff())) {
+                grouped.computeIfAbsent(schedule.routeId(), id -> new ArrayList<>()).add(schedule);
+            }
+            Map<Long, List<ScheduleTime>> schedulesByRoute = new HashMap<>();
+            grouped.forEach((routeId, schedules) -> {
+                schedules.sort(BY_DEPARTURE);
+                schedulesByRoute.put(routeId, Collections.unmodifiableList(schedules));
+            });
+            snapshot = new Snapshot(versions.incrementAndGet(), stopsByRoute, pairs, departureStops, schedulesByRoute);
+        } finally {
+            lock.unlock();
+        }
+    }
+    // Drops schedules that left before the cutoff, which moves forward a day at a time.
+    @Scheduled(cron = "0 5 0 * * *")
+    public void pruneDeparted() {
+        lock.lock();
+        try {
+            Snapshot current = snapshot();
+            LocalDateTime cutoff = cutoff();
+            Map<Long, List<ScheduleTime>> schedulesByRoute = new HashMap<>();
+            current.schedulesByRoute().forEach((routeId, schedules) -> schedulesByRoute.put(routeId,
+                    List.copyOf(schedules.subList(firstDepartureAtOrAfter(schedules, cutoff), schedules.size()))));
+            snapshot = current.withSchedules(versions.incrementAndGet(), schedulesByRoute);
+        } finally {
+            lock.unlock();
+        }
+    }
+    // Enough to answer searches for today onwards: a schedule that left up to LONGEST_TRIP before
+    // the start of today may still reach a stop today. Earlier days are no longer searchable.
+    private static LocalDateTime cutoff() {
+        return LocalDate.now().atStartOfDay().minus(LONGEST_TRIP);
+    }
+    private List<ScheduleTime> loadSchedules(Long routeId) {
+        List<ScheduleTime> schedules = new ArrayList<>(scheduleQueryRepository.findRunningTimesByRoute(routeId, cutoff()));
+        schedules.sort(BY_DEPARTURE);
+        return Collections.unmodifiableList(schedules);
+    }
+    static long pairKey(long originId, long destinationId) {
+        return (originId << 32) | (destinationId & 0xFFFFFFFFL);
+    }
+    private static void addLegs(Map<Long, List<RouteLeg>> pairs, Long routeId, long[] stops) {
+        for (int i = 0; i < stops.length; i++) {
+            for (int j = i + 1; j < stops.length; j++) {
+                long key = pairKey(stops[i], stops[j]);
+                List<RouteLeg> legs = new ArrayList<>(pairs.getOrDefault(key, List.of()));
+                legs.add(new RouteLeg(routeId, i, j));
+                pairs.put(key, Collections.unmodifiableList(legs));
+            }
+        }
+    }
+    private static void removeLegs(Map<Long, List<RouteLeg>> pairs, Long routeId, long[] stops) {
+        for (int i = 0; i < stops.length; i++) {
+            for (int j = i + 1; j < stops.length; j++) {
+                long key = pairKey(stops[i], stops[j]);
+                List<RouteLeg> legs = pairs.get(key);
+                if (legs == null) {
+                    continue;
+                }
+                List<RouteLeg> remaining = legs.stream().filter(leg -> !leg.routeId().equals(routeId)).toList();
+                if (remaining.isEmpty()) {
+                    pairs.remove(key);
+                } else {
+                    pairs.put(key, remaining);
+                }
+            }
+        }
+    }
+    private static void addDepartureStops(Map<Long, List<DepartureStop>> departureStops, Long routeId, long[] stops) {
+        for (int i = 0; i < stops.length - 1; i++) {
+            List<DepartureStop> atStation = new ArrayList<>(departureStops.getOrDefault(stops[i], List.of()));
+            atStation.add(new DepartureStop(routeId, i));
+            departureStops.put(stops[i], Collections.unmodifiableList(atStation));
+        }
+    }
+    private static void removeDepartureStops(Map<Long, List<DepartureStop>> departureStops, Long routeId, long[] stops) {
+        for (long station : stops) {
+            List<DepartureStop> atStation = departureStops.get(station);
+            if (atStation == null) {
+                continue;
+            }
+            List<DepartureStop> remaining = atStation.stream().filter(at -> !at.routeId().equals(routeId)).toList();
+            if (remaining.isEmpty()) {
+                departureStops.remove(station);
+            } else {
+                departureStops.put(station, remaining);
+            }
+        }
+    }
+    private static int firstDepartureAtOrAfter(List<ScheduleTime> schedules, LocalDateTime from) {
+        int low = 0;
+        int high = schedules.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (schedules.get(mid).departureDate().isBefore(from)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            lock.lock();
+            try {
+                if (snapshot == null) {
+                    reload();
+                }
+                current = snapshot;
+            } finally {
+                lock.unlock();
+            }
+        }
+        return current;
+    }
+    // departureStops maps a station to every (route, stop index) that trains leave it from.
+    private record Snapshot(long version, Map<Long, long[]> stopsByRoute, Map<Long, List<RouteLeg>> pairs,
+                            Map<Long, List<DepartureStop>> departureStops, Map<Long, List<ScheduleTime>> schedulesByRoute) {
+        Snapshot withSchedules(long version, Map<Long, List<ScheduleTime>> schedulesByRoute) {
+            return new Snapshot(version, stopsByRoute, pairs, departureStops, schedulesByRoute);
+        }
+    }
+}
@@ -1,32 +1,89 @@
 package com.raillink.service;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import io.micrometer.core.annotation.Timed;
+import com.raillink.config.MetricsConfig;
+import com.raillink.model.Facility;
 import com.raillink.model.Station;
 import com.raillink.repository.StationRepository;
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class StationService {
+    private static final String INSERT_SQL = "INSERT INTO stations (name, facility_mask, archived) VALUES (?, 0, false)";
     @Autowired
     private StationRepository stationRepository;
+    @Autowired
+    private StationCatalog stationCatalog;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private StationPairIndex stationPairIndex;
+    @Autowired
+    private RouteStopService routeStopService;
     public List<Station> findAllStations() {
-        return stationRepository.findAll().stream()
-                .filter(station -> !station.isArchived())
-                .toList();
+        return stationCatalog.all();
     }
     public List<Station> findAllStationsIncludingArchived() {
         return stationRepository.findAll();
     }
     public Optional<Station> findStationById(Long id) {
-        return stationRepository.findById(id);
+        Optional<Station> cached = stationCatalog.findById(id);
+        return cached.isPresent() ? cached : stationRepository.findById(id);
+    }
+    public Optional<Station> findStationByName(String name) {
+        Optional<Station> cached = stationCatalog.findByName(name);
+        return cached.isPresent() ? cached : stationRepository.findByName(name);
+    }
+    public List<Station> findStationsByFacilities(Set<Facility> all, Set<Facility> any) {
+        return stationCatalog.findByFacilities(all, any);
     }
     public Station saveStation(Station station) {
-        return stationRepository.save(station);
+        station.setFacilityMask(Facility.toMask(station.getFacilities()));
+        Station saved = stationRepository.save(station);
+        stationCatalog.put(saved);
+        stationPairIndex.touch();
+        return saved;
     }
     public Station createStation(String name, String location) {
-        return stationRepository
-                .findByName(name)
-                .orElseGet(() -> stationRepository.save(new Station(name, location)));
+        return findStationByName(name)
+                .orElseGet(() -> saveStation(new Station(name, location)));
+    }
+    // Bulk form of createStation: existing stations (archived included) are returned as they are,
+    // missing names are inserted in one JDBC batch.
+    public Map<String, Station> createStations(Collection<String> names) {
+        Map<String, Station> byName = new HashMap<>();
+        List<String> unresolved = new ArrayList<>();
+        for (String name : names) {
+            Optional<Station> cached = stationCatalog.findByName(name);
+            if (cached.isPresent()) {
+                byName.put(name, cached.get());
+            } else {
+                unresolved.add(name);
+            }
+        }
+        if (unresolved.isEmpty()) {
+            return byName;
+        }
+        stationRepository.findByNameIn(unresolved).forEach(station -> byName.put(station.getName(), station));
+        List<String> missing = unresolved.stream().filter(name -> !byName.containsKey(name)).toList();
+        if (!missing.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, missing, missing.size(), (ps, name) -> ps.setString(1, name));
+            for (Station station : stationRepository.findByNameIn(missing)) {
+                byName.put(station.getName(), station);
+                stationCatalog.put(station);
+            }
+        }
+        return byName;
     }
     public Station updateStation(Long id, Station stationDetails) {
         Station station = stationRepository.findById(id)
@@ -35,15 +92,35 @@ public class StationService {
         station.setLocation(stationDetails.getLocation());
         station.setFacilities(stationDetails.getFacilities());
         station.setArchived(stationDetails.isArchived());
-        return stationRepository.save(station);
+        return saveStation(station);
     }
+    // A station that routes still stop at is kept; archive it or take it off those routes first.
     public void deleteStation(Long id) {
+        List<Long> routeIds = routeStopService.findRouteIdsServing(id);
+        if (!routeIds.isEmpty()) {
+            throw new RuntimeException("Station is a stop on routes " + routeIds + "; archive it or remove it from those routes first");
+        }
         stationRepository.deleteById(id);
+        stationCatalog.remove(id);
+        stationPairIndex.touch();
+    }
+    // Derives facility bits for stations saved before facilityMask existed.
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateFacilities() {
+        List<Station> pending = stationRepository.findAll().stream()
+                .filter(station -> station.getFacilityMask() != Facility.toMask(station.getFacilities()))
+                .toList();
+        if (pending.isEmpty()) {
+            return;
+        }
+        pending.forEach(station -> station.setFacilityMask(Facility.toMask(station.getFacilities())));
+        stationRepository.saveAll(pending);
+        stationCatalog.reload();
     }
     public void restoreStation(Long id) {
         Station station = stationRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Station not found"));
         station.setArchived(false);
-        stationRepository.save(station);
+        saveStation(station);
     }
 } 
\ No newline at end of file
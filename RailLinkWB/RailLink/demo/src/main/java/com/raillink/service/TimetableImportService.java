@@ -0,0 +1,294 @@
+package com.raillink.service;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import com.raillink.config.MetricsConfig;
+import com.raillink.dto.NewSchedule;
+import com.raillink.model.Route;
+import com.raillink.model.Station;
+import com.raillink.model.Train;
+import com.raillink.repository.ScheduleJdbcRepository;
+import com.raillink.repository.TrainQueryRepository;
+import jakarta.annotation.PostConstruct;
+// Bulk timetable import. Every row is one schedule: its train (with seat classes, used when
+// the train is new), the ordered stop names, departure and arrival. Stations are upserted by
+// name, trains by name and routes by stop sequence; schedules are written in JDBC batches.
+// The upload is spooled to a temp file and parsed as a stream on a background thread, one
+// chunk of rows at a time, so memory stays flat regardless of file size.
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class TimetableImportService {
+    private static final Logger log = LoggerFactory.getLogger(TimetableImportService.class);
+    public static final int CHUNK_SIZE = 2_000;
+    public static final int MAX_REPORTED_ERRORS = 1_000;
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("uuuu-MM-dd['T'][' ']HH:mm[:ss]");
+    @Autowired
+    private StationService stationService;
+    @Autowired
+    private TrainService trainService;
+    @Autowired
+    private RouteStopService routeStopService;
+    @Autowired
+    private TrainQueryRepository trainQueryRepository;
+    @Autowired
+    private ScheduleJdbcRepository scheduleJdbcRepository;
+    @Autowired
+    private StationPairIndex stationPairIndex;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JobRegistry jobRegistry;
+    private ExecutorService executor;
+    public record RowError(long line, String message) {}
+    public record ImportStatus(String id, String fileName, String state, long rowsRead, int schedulesImported,
+                               int trainsCreated, int routesCreated, long errorCount, List<RowError> errors,
+                               String error, Instant startedAt, Instant finishedAt) {}
+    private record ParsedRow(long line, String train, Map<String, Integer> classes, List<String> stops,
+                             String scheduleName, String status, Integer delayMinutes, String pricingJson,
+                             LocalDateTime departure, LocalDateTime arrival) {}
+    @PostConstruct
+    public void start() {
+        executor = jobRegistry.worker("timetable-import");
+    }
+    public ImportStatus submit(MultipartFile file) throws IOException {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("Upload a non-empty CSV or JSON file");
+        }
+        boolean json = isJson(file.getOriginalFilename(), file.getContentType());
+        Path spooled = Files.createTempFile("timetable-import-", json ? ".json" : ".csv");
+        file.transferTo(spooled);
+        Job job = jobRegistry.register(new Job(file.getOriginalFilename()));
+        executor.submit(() -> run(job, spooled, json));
+        return job.toStatus();
+    }
+    public Optional<ImportStatus> findJob(String id) {
+        return jobRegistry.find(id, Job.class).map(Job::toStatus);
+    }
+    private void run(Job job, Path spooled, boolean json) {
+        job.start();
+        try {
+            importRows(job, spooled, json);
+            job.complete();
+        } catch (Exception e) {
+            log.error("Timetable import {} failed after {} rows", job.getId(), job.rowsRead, e);
+            job.fail(e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(spooled);
+            } catch (IOException e) {
+                log.warn("Could not delete spooled import file {}", spooled, e);
+            }
+        }
+    }
+    private void importRows(Job job, Path spooled, boolean json) throws IOException {
+        try (InputStream in = Files.newInputStream(spooled);
+             TimetableRowReader reader = TimetableRowReader.open(in, json, objectMapper)) {
+            Map<String, Train> trains = new HashMap<>();
+            for (Train train : trainQueryRepository.findAllCached()) {
+                trains.put(train.getName(), train);
+            }
+            Map<String, Long> routesByPath = new HashMap<>();
+            routeStopService.allStops().forEach((routeId, stops) -> routesByPath.put(RouteStopService.toPath(stops), routeId));
+            List<ParsedRow> chunk = new ArrayList<>(CHUNK_SIZE);
+            TimetableRowReader.Row row;
+            while ((row = reader.next()) != null) {
+                job.rowsRead++;
+                ParsedRow parsed = parse(row, job);
+                if (parsed != null) {
+                    chunk.add(parsed);
+                }
+                if (chunk.size() == CHUNK_SIZE) {
+                    write(chunk, trains, routesByPath, job);
+                    chunk.clear();
+                }
+            }
+            write(chunk, trains, routesByPath, job);
+        } finally {
+            // Also after a failure: the chunks written so far are committed.
+            if (job.imported.get() > 0 || job.routesCreated > 0) {
+                stationPairIndex.reload();
+            }
+        }
+    }
+    private void write(List<ParsedRow> chunk, Map<String, Train> trains, Map<String, Long> routesByPath, Job job) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        Set<String> stationNames = new LinkedHashSet<>();
+        chunk.forEach(row -> stationNames.addAll(row.stops()));
+        Map<String, Station> stations = stationService.createStations(stationNames);
+        List<NewSchedule> schedules = new ArrayList<>(chunk.size());
+        for (ParsedRow row : chunk) {
+            long[] stops = stationIds(row.stops(), stations);
+            if (stops == null) {
+                job.reject(row.line(), "a stop name could not be stored as a station");
+                continue;
+            }
+            Train train = trains.computeIfAbsent(row.train(), name -> createTrain(name, row.classes(), job));
+            Long routeId = routesByPath.computeIfAbsent(RouteStopService.toPath(stops), path -> createRoute(stops, job));
+            schedules.add(new NewSchedule(train.getId(), routeId, row.scheduleName(), row.status(),
+                    row.delayMinutes(), row.pricingJson(), row.departure(), row.arrival()));
+        }
+        transactionTemplate.executeWithoutResult(status -> scheduleJdbcRepository.insertBatches(schedules, job.imported));
+    }
+    private static long[] stationIds(List<String> names, Map<String, Station> stations) {
+        long[] ids = new long[names.size()];
+        for (int i = 0; i < ids.length; i++) {
+            Station station = stations.get(names.get(i));
+            if (station == null) {
+                return null;
+            }
+            ids[i] = station.getId();
+        }
+        return ids;
+    }
+    private Train createTrain(String name, Map<String, Integer> classes, Job job) {
+        Train train = new Train();
+        train.setName(name);
+        train.setClasses(new HashMap<>(classes));
+        trainService.saveTrain(train);
+        job.trainsCreated++;
+        return train;
+    }
+    private Long createRoute(long[] stops, Job job) {
+        Route route = routeStopService.saveRoute(new Route(), stops);
+        job.routesCreated++;
+        return route.getId();
+    }
+    // Returns null and records the reason when the row is invalid.
+    private ParsedRow parse(TimetableRowReader.Row row, Job job) {
+        try {
+            String train = row.get("train");
+            if (train == null) {
+                throw new IllegalArgumentException("train is required");
+            }
+            if (row.stops().size() < 2) {
+                throw new IllegalArgumentException("stops needs at least two station names separated by "
+                        + TimetableRowReader.STOP_SEPARATOR);
+            }
+            LocalDateTime departure = parseDateTime(row.get("departure"), "departure");
+            LocalDateTime arrival = parseDateTime(row.get("arrival"), "arrival");
+            if (!arrival.isAfter(departure)) {
+                throw new IllegalArgumentException("arrival must be after departure");
+            }
+            Map<String, Integer> classes = new LinkedHashMap<>();
+            parsePairs(row.get("classes"), "classes").forEach((name, value) -> {
+                int capacity = Integer.parseInt(value);
+                if (capacity <= 0) {
+                    throw new IllegalArgumentException("class capacity must be positive: " + name);
+                }
+                classes.put(name, capacity);
+            });
+            Map<String, BigDecimal> pricing = new LinkedHashMap<>();
+            parsePairs(row.get("pricing"), "pricing").forEach((name, value) -> {
+                BigDecimal price = new BigDecimal(value);
+                if (price.signum() < 0) {
+                    throw new IllegalArgumentException("price must not be negative: " + name);
+                }
+                pricing.put(name, price);
+            });
+            String delay = row.get("delay_minutes");
+            String status = row.get("status");
+            String scheduleName = row.get("schedule_name");
+            return new ParsedRow(row.line(), train, classes, row.stops(),
+                    scheduleName != null ? scheduleName : train,
+                    status != null ? status.toUpperCase(Locale.ROOT) : "ON_TIME",
+                    delay != null ? Integer.valueOf(delay) : null,
+                    pricing.isEmpty() ? null : objectMapper.writeValueAsString(pricing),
+                    departure, arrival);
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            // NumberFormatException is an IllegalArgumentException.
+            job.reject(row.line(), e.getMessage());
+            return null;
+        }
+    }
+    private static LocalDateTime parseDateTime(String value, String field) {
+        if (value == null) {
+            throw new IllegalArgumentException(field + " is required");
+        }
+        try {
+            return LocalDateTime.parse(value, DATE_TIME);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(field + " is not yyyy-MM-dd HH:mm: " + value);
+        }
+    }
+    // "First:40;Second:200" -> {First=40, Second=200}
+    private static Map<String, String> parsePairs(String value, String field) {
+        if (value == null) {
+            return Map.of();
+        }
+        Map<String, String> pairs = new LinkedHashMap<>();
+        for (String pair : value.split(";")) {
+            if (pair.isBlank()) {
+                continue;
+            }
+            int colon = pair.lastIndexOf(':');
+            if (colon <= 0 || colon == pair.length() - 1) {
+                throw new IllegalArgumentException(field + " entries must look like Name:value, got " + pair.trim());
+            }
+            pairs.put(pair.substring(0, colon).trim(), pair.substring(colon + 1).trim());
+        }
+        return pairs;
+    }
+    private static boolean isJson(String fileName, String contentType) {
+        String name = fileName == null ? "" : fileName.toLowerCase(Locale.ROOT);
+        return name.endsWith(".json") || name.endsWith(".ndjson") || name.endsWith(".jsonl")
+                || (contentType != null && contentType.contains("json"));
+    }
+    private static final class Job extends BackgroundJob {
+        private final String fileName;
+        private final AtomicInteger imported = new AtomicInteger();
+        private final List<RowError> errors = Collections.synchronizedList(new ArrayList<>());
+        private volatile long rowsRead;
+        private volatile long errorCount;
+        private volatile int trainsCreated;
+        private volatile int routesCreated;
+        private Job(String fileName) {
+            this.fileName = fileName;
+        }
+        // Only the import thread writes the counters.
+        private void reject(long line, String message) {
+            errorCount++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new RowError(line, message));
+            }
+        }
+        private ImportStatus toStatus() {
+            List<RowError> snapshot;
+            synchronized (errors) {
+                snapshot = List.copyOf(errors);
+            }
+            return new ImportStatus(getId(), fileName, getState(), rowsRead, imported.get(), trainsCreated, routesCreated,
+                    errorCount, snapshot, getError(), getStartedAt(), getFinishedAt());
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.raillink.service;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+// Reads timetable import rows one at a time from CSV (header row required) or JSON (an array of
+// objects, or one object per line). Nothing beyond the current row is held in memory.
+abstract class TimetableRowReader implements Closeable {
+    record Row(long line, Map<String, String> fields, List<String> stops) {
+        String get(String name) {
+            String value = fields.get(key(name));
+            return value == null || value.isBlank() ? null : value.trim();
+        }
+    }
+    static final String STOP_SEPARATOR = "|";
+    // schedule_name, scheduleName and Schedule-Name all name the same column.
+    static String key(String name) {
+        return name.replace("\uFEFF", "").replace("_", "").replace("-", "").trim().toLowerCase(Locale.ROOT);
+    }
+    // Returns null at end of input.
+    abstract Row next() throws IOException;
+    static TimetableRowReader open(InputStream in, boolean json, ObjectMapper objectMapper) throws IOException {
+        return json ? new Json(in, objectMapper) : new Csv(in);
+    }
+    static List<String> splitStops(String value) {
+        List<String> stops = new ArrayList<>();
+        if (value != null) {
+            for (String stop : value.split("\\|")) {
+                if (!stop.isBlank()) {
+                    stops.add(stop.trim());
+                }
+            }
+        }
+        return stops;
+    }
+    private static final class Csv extends TimetableRowReader {
+        private final BufferedReader reader;
+        private final String[] header;
+        private long line;
+        private Csv(InputStream in) throws IOException {
+            reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+            List<String> names = readRecord();
+            if (names == null) {
+                throw new IOException("CSV file is empty");
+            }
+            header = new String[names.size()];
+            for (int i = 0; i < header.length; i++) {
+                header[i] = key(names.get(i));
+            }
+        }
+        @Override
+        Row next() throws IOException {
+            List<String> values;
+            do {
+                values = readRecord();
+                if (values == null) {
+                    return null;
+                }
+            } while (values.size() == 1 && values.get(0).isBlank());
+            Map<String, String> fields = new HashMap<>();
+            for (int i = 0; i < header.length && i < values.size(); i++) {
+                fields.put(header[i], values.get(i));
+            }
+            return new Row(line, fields, splitStops(fields.get(key("stops"))));
+        }
+        // RFC 4180: quoted fields may contain commas, doubled quotes and line breaks.
+        private List<String> readRecord() throws IOException {
+            String text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+            List<String> values = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            int i = 0;
+            while (true) {
+                if (i == text.length()) {
+                    if (!quoted) {
+                        break;
+                    }
+                    String more = reader.readLine();
+                    if (more == null) {
+                        throw new IOException("Unterminated quoted field starting before line " + line);
+                    }
+                    line++;
+                    field.append('\n');
+                    text = more;
+                    i = 0;
+                    continue;
+                }
+                char c = text.charAt(i++);
+                if (quoted) {
+                    if (c == '"') {
+                        if (i < text.length() && text.charAt(i) == '"') {
+                            field.append('"');
+                            i++;
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    values.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            values.add(field.toString());
+            return values;
+        }
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+    private static final class Json extends TimetableRowReader {
+        private final MappingIterator<JsonNode> rows;
+        private long index;
+        private Json(InputStream in, ObjectMapper objectMapper) throws IOException {
+            // A root-level array is unwrapped, so both [{...}, ...] and newline-delimited objects work.
+            rows = objectMapper.readerFor(JsonNode.class).readValues(in);
+        }
+        @Override
+        Row next() throws IOException {
+            if (!rows.hasNextValue()) {
+                return null;
+            }
+            JsonNode node = rows.nextValue();
+            index++;
+            Map<String, String> fields = new HashMap<>();
+            List<String> stops = new ArrayList<>();
+            node.fields().forEachRemaining(entry -> {
+                String name = key(entry.getKey());
+                JsonNode value = entry.getValue();
+                if ("stops".equals(name) && value.isArray()) {
+                    value.forEach(stop -> {
+                        if (!stop.asText().isBlank()) {
+                            stops.add(stop.asText().trim());
+                        }
+                    });
+                } else if (value.isObject()) {
+                    // classes / pricing may be given as {"First": 40}
+                    StringBuilder pairs = new StringBuilder();
+                    value.fields().forEachRemaining(pair -> {
+                        if (pairs.length() > 0) {
+                            pairs.append(';');
+                        }
+                        pairs.append(pair.getKey()).append(':').append(pair.getValue().asText());
+                    });
+                    fields.put(name, pairs.toString());
+                } else if (!value.isNull()) {
+                    fields.put(name, value.asText());
+                }
+            });
+            if (stops.isEmpty()) {
+                stops.addAll(splitStops(fields.get(key("stops"))));
+            }
+            return new Row(index, fields, stops);
+        }
+        @Override
+        public void close() throws IOException {
+            rows.close();
+        }
+    }
+}
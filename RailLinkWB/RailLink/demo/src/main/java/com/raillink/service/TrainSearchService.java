@@ -0,0 +1,61 @@
+package com.raillink.service;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import io.micrometer.core.annotation.Timed;
+import com.raillink.config.MetricsConfig;
+import com.raillink.dto.ScheduleMatch;
+import com.raillink.model.Facility;
+import com.raillink.repository.ScheduleQueryRepository;
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class TrainSearchService {
+    @Autowired
+    private StationPairIndex stationPairIndex;
+    @Autowired
+    private StationCatalog stationCatalog;
+    @Autowired
+    private SearchResultCache searchResultCache;
+    @Autowired
+    private ScheduleQueryRepository scheduleQueryRepository;
+    // Versions restart at zero with the process, so ETags also carry the start time.
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    public List<ScheduleMatch> search(Long originId, Long destinationId, LocalDate date) {
+        return search(originId, destinationId, date, Set.of());
+    }
+    public List<ScheduleMatch> search(Long originId, Long destinationId, LocalDate date, Set<Facility> requiredFacilities) {
+        return search(originId, destinationId, date, requiredFacilities, null);
+    }
+    // Required facilities must be present at both the boarding and the alighting station; a travel
+    // class keeps only schedules whose train offers it.
+    public List<ScheduleMatch> search(Long originId, Long destinationId, LocalDate date, Set<Facility> requiredFacilities,
+                                      String travelClass) {
+        if (originId == null || destinationId == null || date == null || originId.equals(destinationId)) {
+            return List.of();
+        }
+        long requiredMask = Facility.toMask(requiredFacilities);
+        String ticketClass = travelClass == null || travelClass.isBlank() ? null : travelClass.trim();
+        SearchResultCache.Key key = new SearchResultCache.Key(originId, destinationId, date, requiredMask, ticketClass);
+        return searchResultCache.get(key, () -> {
+            if (!stationCatalog.hasFacilities(originId, requiredMask) || !stationCatalog.hasFacilities(destinationId, requiredMask)) {
+                return List.of();
+            }
+            List<ScheduleMatch> matches = stationPairIndex.findSchedules(originId, destinationId, date);
+            if (ticketClass == null || matches.isEmpty()) {
+                return matches;
+            }
+            // One query over the trains' class layouts for all matches, instead of loading a seat
+            // inventory per schedule.
+            Set<Long> offering = new HashSet<>(scheduleQueryRepository.findIdsOfferingClass(
+                    matches.stream().map(ScheduleMatch::scheduleId).toList(), ticketClass));
+            return matches.stream().filter(match -> offering.contains(match.scheduleId())).toList();
+        });
+    }
+    // Identifies the timetable that search results were computed from, for HTTP revalidation.
+    public String etag() {
+        return "\"" + epoch + "-" + stationPairIndex.version() + "\"";
+    }
+}
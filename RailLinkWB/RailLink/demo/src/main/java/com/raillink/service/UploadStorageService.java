@@ -0,0 +1,154 @@
+package com.raillink.service;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+import javax.imageio.ImageIO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import io.micrometer.core.annotation.Timed;
+import com.raillink.config.MetricsConfig;
+// Writes uploads under content-hashed names so /uploads can cache them as immutable, and does
+// the expensive work once at upload time: a .gz sibling for compressible types and narrower
+// copies of raster images (<hash>@<width>w.<ext>) for srcset, instead of per request.
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class UploadStorageService {
+    private static final Logger log = LoggerFactory.getLogger(UploadStorageService.class);
+    private static final Set<String> ALLOWED = Set.of("jpg", "jpeg", "png", "gif", "webp", "pdf", "txt", "csv", "json");
+    private static final Set<String> COMPRESSIBLE = Set.of("pdf", "txt", "csv", "json");
+    private static final Set<String> RESIZABLE = Set.of("jpg", "jpeg", "png");
+    private static final int[] VARIANT_WIDTHS = {320, 960};
+    @Value("${raillink.uploads.dir:uploads}")
+    private String uploadsDir;
+    public record StoredUpload(String url, long size, List<String> variants) {}
+    public StoredUpload store(MultipartFile file) throws IOException {
+        String extension = extension(file.getOriginalFilename());
+        if (extension == null || !ALLOWED.contains(extension)) {
+            throw new IllegalArgumentException("Unsupported file type");
+        }
+        Path dir = Files.createDirectories(Paths.get(uploadsDir));
+        Path temp = Files.createTempFile(dir, ".upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest(), 0, 8);
+            Path target = dir.resolve(hash + "." + extension);
+            List<String> variants = new ArrayList<>();
+            // Same content means same name: a repeated upload reuses the file and its variants.
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                return new StoredUpload(url(target), Files.size(target), existingVariants(dir, hash, extension));
+            }
+            if (COMPRESSIBLE.contains(extension)) {
+                gzip(target).ifPresent(gz -> variants.add(url(gz)));
+            }
+            if (RESIZABLE.contains(extension)) {
+                variants.addAll(resize(target, dir, hash, extension));
+            }
+            return new StoredUpload(url(target), Files.size(target), variants);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+    // Empty when compression does not save bytes and no sibling was kept.
+    private Optional<Path> gzip(Path source) throws IOException {
+        Path gz = source.resolveSibling(source.getFileName() + ".gz");
+        Path temp = Files.createTempFile(source.getParent(), ".gzip-", ".tmp");
+        try {
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp), 64 * 1024)) {
+                Files.copy(source, out);
+            }
+            // EncodedResourceResolver falls back to the original when there is no sibling.
+            if (Files.size(temp) >= Files.size(source)) {
+                return Optional.empty();
+            }
+            Files.move(temp, gz, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return Optional.of(gz);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+    private List<String> resize(Path source, Path dir, String hash, String extension) {
+        List<String> urls = new ArrayList<>();
+        try {
+            BufferedImage image = ImageIO.read(source.toFile());
+            if (image == null) {
+                return urls;
+            }
+            String format = extension.equals("png") ? "png" : "jpg";
+            for (int width : VARIANT_WIDTHS) {
+                if (width >= image.getWidth()) {
+                    continue;
+                }
+                int height = Math.max(1, Math.round((float) image.getHeight() * width / image.getWidth()));
+                int type = format.equals("png") ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+                BufferedImage scaled = new BufferedImage(width, height, type);
+                Graphics2D g = scaled.createGraphics();
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(image, 0, 0, width, height, null);
+                g.dispose();
+                Path variant = dir.resolve(hash + "@" + width + "w." + extension);
+                ImageIO.write(scaled, format, variant.toFile());
+                urls.add(url(variant));
+            }
+        } catch (IOException e) {
+            // The original is already stored; missing variants only cost bandwidth.
+            log.warn("Could not create resized variants for {}: {}", source.getFileName(), e.getMessage());
+        }
+        return urls;
+    }
+    private static List<String> existingVariants(Path dir, String hash, String extension) throws IOException {
+        List<String> urls = new ArrayList<>();
+        try (var files = Files.newDirectoryStream(dir, hash + "*")) {
+            for (Path path : files) {
+                String name = path.getFileName().toString();
+                if (!name.equals(hash + "." + extension)) {
+                    urls.add(url(path));
+                }
+            }
+        }
+        return urls;
+    }
+    private static String url(Path path) {
+        return "/uploads/" + path.getFileName();
+    }
+    private static String extension(String filename) {
+        if (filename == null) {
+            return null;
+        }
+        int dot = filename.lastIndexOf('.');
+        return dot < 0 ? null : filename.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.raillink.service;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import io.micrometer.core.annotation.Timed;
+import com.raillink.config.MetricsConfig;
+import com.raillink.dto.UserPage;
+import com.raillink.model.User;
+import com.raillink.repository.UserQueryRepository;
+// Paginated substring search over username and email. Queries whose words are all at least
+// two characters use a MySQL FULLTEXT index with the ngram parser, created by
+// db/users-fulltext.sql; other queries, or databases without the index, fall back to a LIKE scan.
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+@Transactional(readOnly = true)
+public class UserSearchService {
+    private static final Logger log = LoggerFactory.getLogger(UserSearchService.class);
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+    private static final String INDEX_NAME = "ft_users_username_email";
+    // Matches MySQL's default ngram_token_size.
+    private static final int NGRAM_SIZE = 2;
+    @Autowired
+    private UserQueryRepository userQueryRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    private volatile boolean fullTextAvailable;
+    public UserPage search(String query, Long after, int size) {
+        int pageSize = size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        List<User> rows;
+        if (query == null || query.isBlank()) {
+            rows = userQueryRepository.findPageAfter(after, PageRequest.of(0, pageSize + 1));
+        } else {
+            String term = query.trim().toLowerCase();
+            String pattern = "%" + escapeLike(term) + "%";
+            String phrase = toPhrase(term);
+            if (fullTextAvailable && phrase != null) {
+                rows = userQueryRepository.searchFullTextAfter(phrase, pattern, after == null ? 0L : after, pageSize + 1);
+            } else {
+                rows = userQueryRepository.searchByPatternAfter(pattern, after, PageRequest.of(0, pageSize + 1));
+            }
+        }
+        if (rows.size() <= pageSize) {
+            return new UserPage(rows, null, pageSize);
+        }
+        List<User> items = rows.subList(0, pageSize);
+        return new UserPage(items, items.get(pageSize - 1).getId(), pageSize);
+    }
+    // Only checks for the index; building it locks the users table, so it is left to the script.
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void detectFullTextIndex() {
+        try {
+            Integer existing = jdbcTemplate.queryForObject(
+                    "select count(*) from information_schema.statistics "
+                            + "where table_schema = database() and table_name = 'users' and index_name = ?",
+                    Integer.class, INDEX_NAME);
+            fullTextAvailable = existing != null && existing > 0;
+            if (!fullTextAvailable) {
+                log.info("Index {} not found, user search uses LIKE; see db/users-fulltext.sql", INDEX_NAME);
+            }
+        } catch (DataAccessException e) {
+            log.warn("User full-text index unavailable, falling back to LIKE search: {}", e.getMessage());
+            fullTextAvailable = false;
+        }
+    }
+    // Returns null when a word is shorter than the ngram size: it yields no index token, so
+    // the phrase would match nothing.
+    private static String toPhrase(String term) {
+        // Boolean operators are literal inside a quoted phrase, so only quotes need stripping.
+        String cleaned = term.replace("\"", " ").trim();
+        if (cleaned.isEmpty()) {
+            return null;
+        }
+        for (String word : cleaned.split("\\s+")) {
+            if (word.length() < NGRAM_SIZE) {
+                return null;
+            }
+        }
+        return "\"" + cleaned + "\"";
+    }
+    private static String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
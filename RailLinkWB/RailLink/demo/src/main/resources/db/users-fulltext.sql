@@ -0,0 +1,7 @@
+-- ngram FULLTEXT index for the admin user search (UserSearchService). Run once per database,
+-- after the users table exists. Without it the search falls back to a LIKE scan.
+-- Stopwords must be off while the index is built: the ngram parser drops every token that
+-- contains a stopword, so with the default list any bigram containing "a" or "i" is lost.
+-- The setting is stored with the index and also applies to later queries.
+SET SESSION innodb_ft_enable_stopword = OFF;
+ALTER TABLE users ADD FULLTEXT INDEX ft_users_username_email (username, email) WITH PARSER ngram;
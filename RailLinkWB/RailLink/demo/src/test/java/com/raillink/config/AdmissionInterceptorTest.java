@@ -0,0 +1,52 @@
+package com.raillink.config;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.DispatcherType;
+class AdmissionInterceptorTest {
+    private SimpleMeterRegistry meterRegistry;
+    private AdmissionInterceptor interceptor;
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        interceptor = new AdmissionInterceptor();
+        ReflectionTestUtils.setField(interceptor, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(interceptor, "enabled", true);
+        ReflectionTestUtils.setField(interceptor, "globalRate", 1e-9);
+        ReflectionTestUtils.setField(interceptor, "globalBurst", 1);
+        ReflectionTestUtils.setField(interceptor, "userRate", 1000.0);
+        ReflectionTestUtils.setField(interceptor, "userBurst", 1000);
+        ReflectionTestUtils.setField(interceptor, "queueCapacity", 10);
+        ReflectionTestUtils.setField(interceptor, "ticketTtlMillis", 15_000L);
+        interceptor.start();
+    }
+    @AfterEach
+    void tearDown() {
+        interceptor.stop();
+    }
+    @Test
+    void asyncDispatchOfAnAdmittedRequestIsNotAdmittedAgain() throws Exception {
+        MockHttpServletRequest request = booking();
+        assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), null));
+        request.setDispatcherType(DispatcherType.ASYNC);
+        MockHttpServletResponse asyncResponse = new MockHttpServletResponse();
+        assertTrue(interceptor.preHandle(request, asyncResponse, null));
+        assertEquals(200, asyncResponse.getStatus());
+        assertEquals(1.0, meterRegistry.get("raillink.admission").tag("outcome", "admitted").counter().count());
+        MockHttpServletResponse next = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(booking(), next, null));
+        assertEquals(429, next.getStatus());
+    }
+    private static MockHttpServletRequest booking() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/bookings/pipeline");
+        request.setParameter("scheduleId", "7");
+        return request;
+    }
+}
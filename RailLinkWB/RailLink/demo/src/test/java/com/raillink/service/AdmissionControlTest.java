@@ -0,0 +1,81 @@
+package com.raillink.service;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import com.raillink.service.AdmissionControl.Decision;
+import com.raillink.service.AdmissionControl.Outcome;
+import com.raillink.service.AdmissionControl.TokenBucket;
+class AdmissionControlTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    @Test
+    void bucketAllowsItsBurstThenRefillsAtItsRate() {
+        TokenBucket bucket = new TokenBucket(2, 3, 0);
+        assertTrue(bucket.tryAcquire(0));
+        assertTrue(bucket.tryAcquire(0));
+        assertTrue(bucket.tryAcquire(0));
+        assertFalse(bucket.tryAcquire(0));
+        assertEquals(500, bucket.millisUntilToken(0));
+        assertTrue(bucket.tryAcquire(SECOND / 2));
+        assertFalse(bucket.tryAcquire(SECOND / 2));
+    }
+    @Test
+    void idleBucketRefillsNoFurtherThanItsBurst() {
+        TokenBucket bucket = new TokenBucket(10, 2, 0);
+        assertTrue(bucket.tryAcquire(0));
+        assertTrue(bucket.tryAcquire(60 * SECOND));
+        assertTrue(bucket.tryAcquire(60 * SECOND));
+        assertFalse(bucket.tryAcquire(60 * SECOND));
+    }
+    @Test
+    void userOverItsRateIsRejected() {
+        AdmissionControl admission = new AdmissionControl(1000, 1000, 0.001, 2, 10, 60_000);
+        assertEquals(Outcome.ADMITTED, admission.admit("alice", "1", null).outcome());
+        assertEquals(Outcome.ADMITTED, admission.admit("alice", "1", null).outcome());
+        assertEquals(Outcome.REJECTED_USER_RATE, admission.admit("alice", "1", null).outcome());
+        assertEquals(Outcome.ADMITTED, admission.admit("bob", "1", null).outcome());
+    }
+    @Test
+    void fullQueueIsRejected() {
+        AdmissionControl admission = dryGlobal(2);
+        assertEquals(Outcome.QUEUED, admission.admit("a1", "A", null).outcome());
+        assertEquals(Outcome.QUEUED, admission.admit("a2", "A", null).outcome());
+        assertEquals(Outcome.REJECTED_QUEUE_FULL, admission.admit("a3", "A", null).outcome());
+        assertEquals(Outcome.QUEUED, admission.admit("b1", "B", null).outcome());
+    }
+    @Test
+    void freedTokensGoToQueueHeadsInTurn() {
+        AdmissionControl admission = dryGlobal(10);
+        Decision a1 = admission.admit("a1", "A", null);
+        Decision a2 = admission.admit("a2", "A", null);
+        Decision a3 = admission.admit("a3", "A", null);
+        Decision b1 = admission.admit("b1", "B", null);
+        assertEquals(3, a3.position());
+        assertEquals(1, b1.position());
+        ReflectionTestUtils.setField(admission, "global", new TokenBucket(1e-9, 2, System.nanoTime()));
+        admission.dispatch();
+        assertEquals(Outcome.ADMITTED, admission.admit("a1", "A", a1.ticket()).outcome());
+        assertEquals(Outcome.ADMITTED, admission.admit("b1", "B", b1.ticket()).outcome());
+        Decision waiting = admission.admit("a2", "A", a2.ticket());
+        assertEquals(Outcome.QUEUED, waiting.outcome());
+        assertEquals(1, waiting.position());
+        assertEquals(2, admission.queuedCount());
+    }
+    @Test
+    void retryAfterStaysWellInsideTheTicketTtl() {
+        AdmissionControl admission = new AdmissionControl(1e-9, 1, 1000, 1000, 10, 15_000);
+        assertEquals(Outcome.ADMITTED, admission.admit("first", "A", null).outcome());
+        Decision queued = admission.admit("a1", "A", null);
+        assertEquals(Outcome.QUEUED, queued.outcome());
+        assertEquals(5_000, queued.retryAfterMillis());
+        assertEquals(5_000, admission.admit("a1", "A", queued.ticket()).retryAfterMillis());
+    }
+    // Spends the single global token so every later request has to queue.
+    private static AdmissionControl dryGlobal(int queueCapacity) {
+        AdmissionControl admission = new AdmissionControl(1e-9, 1, 1000, 1000, queueCapacity, 60_000);
+        assertEquals(Outcome.ADMITTED, admission.admit("first", "A", null).outcome());
+        return admission;
+    }
+}
@@ -0,0 +1,119 @@
+package com.raillink.service;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.raillink.model.Booking;
+import com.raillink.model.Schedule;
+import com.raillink.model.User;
+import jakarta.persistence.EntityManager;
+class BookingPipelineTest {
+    private static final long SCHEDULE = 7L;
+    private static final long BAD_USER = 3L;
+    private SeatInventoryService seatInventoryService;
+    private BookingService bookingService;
+    private PlatformTransactionManager transactionManager;
+    private BookingPipeline pipeline;
+    private final CountDownLatch writing = new CountDownLatch(1);
+    private final CountDownLatch queued = new CountDownLatch(1);
+    private final AtomicLong ids = new AtomicLong(100);
+    @BeforeEach
+    void setUp() {
+        seatInventoryService = mock(SeatInventoryService.class);
+        bookingService = mock(BookingService.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        EntityManager entityManager = mock(EntityManager.class);
+        User badUser = new User();
+        when(entityManager.getReference(eq(User.class), any())).thenAnswer(invocation ->
+                Long.valueOf(BAD_USER).equals(invocation.getArgument(1)) ? badUser : new User());
+        when(entityManager.getReference(eq(Schedule.class), any())).thenReturn(new Schedule());
+        // The first request holds the writer until the rest are queued, so they form one batch.
+        when(seatInventoryService.reserve(eq(SCHEDULE), anyString(), anyString())).thenAnswer(invocation -> {
+            if ("1".equals(invocation.getArgument(2))) {
+                writing.countDown();
+                queued.await(5, TimeUnit.SECONDS);
+            }
+            return new SeatInventoryService.Seat("Second", invocation.getArgument(2));
+        });
+        when(bookingService.createBooking(any(), any(), anyString(), anyString())).thenAnswer(invocation -> {
+            if (invocation.getArgument(0) == badUser) {
+                throw new DataIntegrityViolationException("Duplicate entry");
+            }
+            Booking booking = new Booking();
+            booking.setId(ids.incrementAndGet());
+            return booking;
+        });
+        pipeline = new BookingPipeline();
+        ReflectionTestUtils.setField(pipeline, "entityManager", entityManager);
+        ReflectionTestUtils.setField(pipeline, "transactionTemplate", new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(pipeline, "bookingService", bookingService);
+        ReflectionTestUtils.setField(pipeline, "seatInventoryService", seatInventoryService);
+        ReflectionTestUtils.setField(pipeline, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(pipeline, "partitionCount", 1);
+        ReflectionTestUtils.setField(pipeline, "queueCapacity", 16);
+        pipeline.start();
+    }
+    @AfterEach
+    void tearDown() {
+        pipeline.shutdown();
+    }
+    @Test
+    void failedBatchOnlyFailsTheOffendingRequest() throws Exception {
+        CompletableFuture<BookingPipeline.BookingResult> first = submitFirst();
+        CompletableFuture<BookingPipeline.BookingResult> good = submit(2, "2");
+        CompletableFuture<BookingPipeline.BookingResult> bad = submit(BAD_USER, "3");
+        CompletableFuture<BookingPipeline.BookingResult> alsoGood = submit(4, "4");
+        queued.countDown();
+        assertEquals("1", first.get(5, TimeUnit.SECONDS).seatNumber());
+        assertEquals("2", good.get(5, TimeUnit.SECONDS).seatNumber());
+        assertEquals("4", alsoGood.get(5, TimeUnit.SECONDS).seatNumber());
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> bad.get(5, TimeUnit.SECONDS));
+        assertEquals(DataIntegrityViolationException.class, failure.getCause().getClass());
+        verify(seatInventoryService).release(SCHEDULE, "Second", "3");
+        verify(seatInventoryService, never()).release(eq(SCHEDULE), anyString(), eq("2"));
+        verify(seatInventoryService, never()).release(eq(SCHEDULE), anyString(), eq("4"));
+        // The batch of three was tried once together and then once per booking.
+        verify(bookingService, times(2)).createBooking(any(), any(), eq("2"), anyString());
+        verify(transactionManager, times(2)).rollback(any());
+    }
+    @Test
+    void batchIsCreatedInOneTransaction() throws Exception {
+        CompletableFuture<BookingPipeline.BookingResult> first = submitFirst();
+        CompletableFuture<BookingPipeline.BookingResult> second = submit(2, "2");
+        CompletableFuture<BookingPipeline.BookingResult> third = submit(4, "4");
+        queued.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        assertEquals(second.get(5, TimeUnit.SECONDS).bookingId() + 1, third.get(5, TimeUnit.SECONDS).bookingId());
+        verify(transactionManager, times(2)).commit(any());
+        verify(seatInventoryService, never()).release(anyLong(), anyString(), anyString());
+    }
+    // Submits the first request and waits until the writer is busy with it.
+    private CompletableFuture<BookingPipeline.BookingResult> submitFirst() throws InterruptedException {
+        CompletableFuture<BookingPipeline.BookingResult> first = submit(1, "1");
+        writing.await(5, TimeUnit.SECONDS);
+        return first;
+    }
+    private CompletableFuture<BookingPipeline.BookingResult> submit(long userId, String seatNumber) {
+        return pipeline.submit(new BookingPipeline.BookingRequest(userId, SCHEDULE, "Second", seatNumber));
+    }
+}
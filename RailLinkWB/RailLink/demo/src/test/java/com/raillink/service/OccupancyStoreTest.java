@@ -0,0 +1,75 @@
+package com.raillink.service;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import com.raillink.dto.ClassCapacity;
+import com.raillink.dto.ClassOccupancy;
+import com.raillink.dto.ScheduleTime;
+import com.raillink.repository.BookingQueryRepository;
+import com.raillink.repository.ScheduleQueryRepository;
+class OccupancyStoreTest {
+    private static final long SCHEDULE = 7L;
+    private static final long OTHER = 8L;
+    private final LocalDateTime departure = LocalDateTime.now().plusDays(2);
+    private BookingQueryRepository bookingQueryRepository;
+    private OccupancyStore store;
+    private final List<ClassOccupancy> committed = new ArrayList<>();
+    @BeforeEach
+    void setUp() {
+        ScheduleQueryRepository scheduleQueryRepository = mock(ScheduleQueryRepository.class);
+        bookingQueryRepository = mock(BookingQueryRepository.class);
+        for (long id : new long[] {SCHEDULE, OTHER}) {
+            when(scheduleQueryRepository.findTimeById(id)).thenReturn(Optional.of(new ScheduleTime(id, 1L, departure, departure.plusHours(2))));
+            when(scheduleQueryRepository.findClassCapacities(id)).thenReturn(List.of(
+                    new ClassCapacity(id, "First", 10, departure), new ClassCapacity(id, "Second", 40, departure)));
+        }
+        when(bookingQueryRepository.countActiveByClass(SCHEDULE)).thenAnswer(invocation -> List.copyOf(committed));
+        when(bookingQueryRepository.countActiveByClass(OTHER)).thenReturn(List.of());
+        store = new OccupancyStore();
+        ReflectionTestUtils.setField(store, "scheduleQueryRepository", scheduleQueryRepository);
+        ReflectionTestUtils.setField(store, "bookingQueryRepository", bookingQueryRepository);
+    }
+    @Test
+    void firstChangeOnUntrackedScheduleIsNotCountedTwice() {
+        committed.add(new ClassOccupancy(SCHEDULE, "First", 3L));
+        store.bookingCreated(SCHEDULE, "First");
+        assertEquals(3, booked(SCHEDULE, "First"));
+        verify(bookingQueryRepository, times(1)).countActiveByClass(SCHEDULE);
+    }
+    @Test
+    void trackedScheduleMovesWithEachChange() {
+        store.findSchedule(SCHEDULE);
+        store.bookingCreated(SCHEDULE, "First");
+        store.bookingCreated(SCHEDULE, "Second");
+        store.bookingCreated(SCHEDULE, "Second");
+        store.bookingCancelled(SCHEDULE, "Second");
+        assertEquals(1, booked(SCHEDULE, "First"));
+        assertEquals(1, booked(SCHEDULE, "Second"));
+        assertEquals(2, store.findSchedule(SCHEDULE).orElseThrow().booked());
+        verify(bookingQueryRepository, times(1)).countActiveByClass(SCHEDULE);
+    }
+    @Test
+    void changedBookingMovesBetweenSchedulesAndClasses() {
+        committed.add(new ClassOccupancy(SCHEDULE, "First", 2L));
+        store.findSchedule(SCHEDULE);
+        store.findSchedule(OTHER);
+        store.bookingChanged(SCHEDULE, "First", true, OTHER, "Second", true);
+        assertEquals(1, booked(SCHEDULE, "First"));
+        assertEquals(1, booked(OTHER, "Second"));
+        store.bookingChanged(OTHER, "Second", true, OTHER, "Second", false);
+        assertEquals(0, booked(OTHER, "Second"));
+    }
+    private int booked(long scheduleId, String ticketClass) {
+        return store.findSchedule(scheduleId).orElseThrow().classes().stream()
+                .filter(c -> c.ticketClass().equals(ticketClass)).findFirst().orElseThrow().booked();
+    }
+}
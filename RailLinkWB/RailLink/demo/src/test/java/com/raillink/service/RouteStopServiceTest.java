@@ -0,0 +1,57 @@
+package com.raillink.service;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import com.raillink.model.RouteStop;
+import com.raillink.repository.RouteStopRepository;
+class RouteStopServiceTest {
+    private static final long ROUTE = 5L;
+    private RouteStopService service;
+    @BeforeEach
+    void setUp() {
+        RouteStopRepository routeStopRepository = mock(RouteStopRepository.class);
+        when(routeStopRepository.findByRouteIdOrderByPositionAsc(ROUTE)).thenReturn(List.of(
+                new RouteStop(ROUTE, 1L, 0), new RouteStop(ROUTE, 2L, 1)));
+        service = new RouteStopService();
+        ReflectionTestUtils.setField(service, "routeStopRepository", routeStopRepository);
+        assertArrayEquals(new long[] {1, 2}, service.stopsOf(ROUTE));
+        TransactionSynchronizationManager.initSynchronization();
+    }
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+    @Test
+    void cachedStopsChangeOnlyOnCommit() {
+        service.replaceStops(ROUTE, new long[] {1, 3, 2});
+        assertArrayEquals(new long[] {1, 2}, service.stopsOf(ROUTE));
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        assertArrayEquals(new long[] {1, 3, 2}, service.stopsOf(ROUTE));
+    }
+    @Test
+    void rollbackKeepsTheCachedStops() {
+        service.deleteStops(ROUTE);
+        service.replaceStops(ROUTE, new long[] {4});
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertArrayEquals(new long[] {1, 2}, service.stopsOf(ROUTE));
+    }
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        for (TransactionSynchronization synchronization : synchronizations) {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                synchronization.afterCommit();
+            }
+            synchronization.afterCompletion(status);
+        }
+    }
+}
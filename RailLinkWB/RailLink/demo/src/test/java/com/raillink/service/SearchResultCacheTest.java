@@ -0,0 +1,79 @@
+package com.raillink.service;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.raillink.dto.ScheduleMatch;
+class SearchResultCacheTest {
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 1);
+    private StationPairIndex stationPairIndex;
+    private SimpleMeterRegistry meterRegistry;
+    private SearchResultCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+    @BeforeEach
+    void setUp() {
+        stationPairIndex = mock(StationPairIndex.class);
+        when(stationPairIndex.version()).thenReturn(1L);
+        cache = new SearchResultCache();
+        ReflectionTestUtils.setField(cache, "stationPairIndex", stationPairIndex);
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(cache, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(cache, "maxEntries", 2);
+        cache.registerMetrics();
+    }
+    @Test
+    void repeatedQueryIsAnsweredFromTheCache() {
+        List<ScheduleMatch> first = cache.get(key(1), this::load);
+        assertSame(first, cache.get(key(1), this::load));
+        assertEquals(1, loads.get());
+    }
+    @Test
+    void fullCacheStillAdmitsNewQueries() {
+        cache.get(key(1), this::load);
+        cache.get(key(2), this::load);
+        cache.get(key(3), this::load);
+        cache.get(key(3), this::load);
+        assertEquals(3, loads.get());
+    }
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() {
+        cache.get(key(1), this::load);
+        cache.get(key(2), this::load);
+        cache.get(key(1), this::load);
+        cache.get(key(3), this::load);
+        cache.get(key(1), this::load);
+        assertEquals(3, loads.get());
+        cache.get(key(2), this::load);
+        assertEquals(4, loads.get());
+    }
+    @Test
+    void generationStaysWithinMaxEntries() {
+        for (long destination = 1; destination <= 50; destination++) {
+            cache.get(key(destination), this::load);
+            cache.get(key(1), this::load);
+        }
+        assertEquals(2.0, meterRegistry.get("raillink.search.cache.size").gauge().value());
+        assertEquals(50, loads.get());
+    }
+    @Test
+    void newTimetableVersionDropsCachedResults() {
+        cache.get(key(1), this::load);
+        when(stationPairIndex.version()).thenReturn(2L);
+        cache.get(key(1), this::load);
+        assertEquals(2, loads.get());
+    }
+    private List<ScheduleMatch> load() {
+        loads.incrementAndGet();
+        return List.of();
+    }
+    private static SearchResultCache.Key key(long destinationId) {
+        return new SearchResultCache.Key(1L, destinationId, DAY, 0L, null);
+    }
+}
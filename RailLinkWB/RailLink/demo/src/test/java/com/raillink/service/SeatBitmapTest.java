@@ -0,0 +1,77 @@
+package com.raillink.service;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+class SeatBitmapTest {
+    @Test
+    void takesLowestFreeSeatAcrossWordBoundaries() {
+        SeatBitmap seats = new SeatBitmap(130);
+        for (int i = 0; i < 130; i++) {
+            assertEquals(i, seats.takeAny());
+        }
+        assertEquals(-1, seats.takeAny());
+        seats.release(64);
+        assertEquals(64, seats.takeAny());
+        assertEquals(0, seats.freeCount());
+    }
+    @Test
+    void rejectsSeatsOutsideTheCapacity() {
+        SeatBitmap seats = new SeatBitmap(10);
+        assertFalse(seats.tryTake(-1));
+        assertFalse(seats.tryTake(10));
+        assertTrue(seats.tryTake(9));
+        assertFalse(seats.tryTake(9));
+        seats.release(10);
+        assertEquals(1, seats.takenCount());
+    }
+    @Test
+    void releaseIsIdempotent() {
+        SeatBitmap seats = new SeatBitmap(3);
+        assertTrue(seats.tryTake(1));
+        seats.release(1);
+        seats.release(1);
+        assertEquals(3, seats.freeCount());
+        assertFalse(seats.isTaken(1));
+    }
+    @Test
+    void concurrentTakersNeverShareASeat() throws InterruptedException {
+        SeatBitmap seats = new SeatBitmap(1_000);
+        Set<Integer> taken = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        AtomicInteger soldOut = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < 8; t++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 200; i++) {
+                    int seat = seats.takeAny();
+                    if (seat < 0) {
+                        soldOut.incrementAndGet();
+                    } else if (!taken.add(seat)) {
+                        duplicates.incrementAndGet();
+                    }
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(0, duplicates.get());
+        assertEquals(1_000, taken.size());
+        assertEquals(600, soldOut.get());
+        assertEquals(0, seats.freeCount());
+    }
+}
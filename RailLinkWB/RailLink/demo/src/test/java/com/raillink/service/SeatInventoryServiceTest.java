@@ -0,0 +1,145 @@
+package com.raillink.service;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import com.raillink.dto.ClassCapacity;
+import com.raillink.dto.SeatAssignment;
+import com.raillink.repository.BookingQueryRepository;
+import com.raillink.repository.ScheduleQueryRepository;
+class SeatInventoryServiceTest {
+    private static final long SCHEDULE = 7L;
+    private final LocalDateTime departure = LocalDateTime.now().plusDays(2);
+    private ScheduleQueryRepository scheduleQueryRepository;
+    private BookingQueryRepository bookingQueryRepository;
+    private SeatInventoryService inventory;
+    private final List<SeatAssignment> committed = new ArrayList<>();
+    @BeforeEach
+    void setUp() {
+        scheduleQueryRepository = mock(ScheduleQueryRepository.class);
+        bookingQueryRepository = mock(BookingQueryRepository.class);
+        when(scheduleQueryRepository.findBookableClassCapacities(SCHEDULE)).thenReturn(List.of(
+                new ClassCapacity(SCHEDULE, "First", 2, departure), new ClassCapacity(SCHEDULE, "Second", 3, departure)));
+        when(bookingQueryRepository.findSeatAssignments(SCHEDULE)).thenReturn(committed);
+        inventory = new SeatInventoryService();
+        ReflectionTestUtils.setField(inventory, "scheduleQueryRepository", scheduleQueryRepository);
+        ReflectionTestUtils.setField(inventory, "bookingQueryRepository", bookingQueryRepository);
+    }
+    @Test
+    void classlessRequestsDrawFromARealClass() {
+        List<SeatInventoryService.Seat> seats = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            seats.add(inventory.reserve(SCHEDULE, null, null));
+        }
+        assertEquals(3, seats.stream().filter(seat -> seat.ticketClass().equals("Second")).count());
+        assertEquals(2, seats.stream().filter(seat -> seat.ticketClass().equals("First")).count());
+        // The whole train is five seats; there is no second pool to sell them again from.
+        assertThrows(RuntimeException.class, () -> inventory.reserve(SCHEDULE, null, null));
+        assertThrows(RuntimeException.class, () -> inventory.reserve(SCHEDULE, "First", null));
+        assertEquals(Map.of("First", 0, "Second", 0), inventory.freeSeats(SCHEDULE));
+    }
+    @Test
+    void unknownSeatLabelsAreRejected() {
+        assertThrows(RuntimeException.class, () -> inventory.reserve(SCHEDULE, "First", "A1"));
+        assertThrows(RuntimeException.class, () -> inventory.reserve(SCHEDULE, "First", "0"));
+        assertThrows(RuntimeException.class, () -> inventory.reserve(SCHEDULE, "First", "3"));
+        assertThrows(RuntimeException.class, () -> inventory.reserve(SCHEDULE, "Sleeper", null));
+        assertEquals(new SeatInventoryService.Seat("First", "2"), inventory.reserve(SCHEDULE, "First", " 2 "));
+        assertThrows(RuntimeException.class, () -> inventory.reserve(SCHEDULE, "First", "2"));
+    }
+    @Test
+    void releasedSeatsCanBeBookedAgain() {
+        SeatInventoryService.Seat seat = inventory.reserve(SCHEDULE, "First", "1");
+        assertTrue(inventory.isTaken(SCHEDULE, "First", "1"));
+        inventory.release(SCHEDULE, seat.ticketClass(), seat.seatNumber());
+        assertFalse(inventory.isTaken(SCHEDULE, "First", "1"));
+        assertEquals(seat, inventory.reserve(SCHEDULE, "First", "1"));
+    }
+    @Test
+    void committedSeatsAreTakenOnLoad() {
+        committed.add(new SeatAssignment(SCHEDULE, "First", "1"));
+        committed.add(new SeatAssignment(SCHEDULE, null, "1"));
+        committed.add(new SeatAssignment(SCHEDULE, "Second", "A1"));
+        // The class-less row lands on the first class where seat 1 is still free; the legacy
+        // label uses up the highest free seat of its class.
+        assertEquals(Map.of("First", 1, "Second", 1), inventory.freeSeats(SCHEDULE));
+        assertTrue(inventory.isTaken(SCHEDULE, "Second", "3"));
+    }
+    @Test
+    void unknownSchedulesAreNotCached() {
+        assertEquals(Map.of(), inventory.freeSeats(99L));
+        assertEquals(Map.of(), inventory.freeSeats(99L));
+        verify(scheduleQueryRepository, times(2)).findBookableClassCapacities(99L);
+        assertThrows(RuntimeException.class, () -> inventory.reserve(99L, null, null));
+    }
+    @Test
+    void departedSchedulesAreEvicted() {
+        when(scheduleQueryRepository.findBookableClassCapacities(8L)).thenReturn(List.of(
+                new ClassCapacity(8L, "First", 2, LocalDateTime.now().minusDays(3))));
+        inventory.freeSeats(8L);
+        inventory.freeSeats(8L);
+        verify(scheduleQueryRepository, times(2)).findBookableClassCapacities(8L);
+        inventory.freeSeats(SCHEDULE);
+        inventory.evictDeparted();
+        inventory.freeSeats(SCHEDULE);
+        verify(scheduleQueryRepository, times(1)).findBookableClassCapacities(SCHEDULE);
+    }
+    @Test
+    void rebuildKeepsReservationsMadeOnLoadedSchedules() {
+        SeatInventoryService.Seat held = inventory.reserve(SCHEDULE, "Second", null);
+        // The held seat's booking is not committed yet, so the rebuild queries do not see it.
+        when(scheduleQueryRepository.findUpcomingBookableClassCapacities(any())).thenReturn(List.of(
+                new ClassCapacity(SCHEDULE, "Second", 3, departure), new ClassCapacity(9L, "First", 4, departure)));
+        when(bookingQueryRepository.findUpcomingSeatAssignments(any())).thenReturn(List.of(new SeatAssignment(9L, "First", "4")));
+        inventory.rebuild();
+        assertTrue(inventory.isTaken(SCHEDULE, held.ticketClass(), held.seatNumber()));
+        assertEquals(Map.of("First", 3), inventory.freeSeats(9L));
+        verify(scheduleQueryRepository, times(0)).findBookableClassCapacities(9L);
+    }
+    @Test
+    void claimMarksSeatsOfBookingsWrittenElsewhere() {
+        inventory.freeSeats(SCHEDULE);
+        assertTrue(inventory.claim(SCHEDULE, "Second", "1"));
+        assertFalse(inventory.claim(SCHEDULE, "Second", "1"));
+        assertEquals(new SeatInventoryService.Seat("Second", "2"), inventory.reserve(SCHEDULE, "Second", null));
+    }
+    @Test
+    void committingTheReservedBookingIsNotAConflict() {
+        SeatInventoryService.Seat seat = inventory.reserve(SCHEDULE, "Second", null);
+        assertNull(inventory.hold(SCHEDULE, seat.ticketClass(), seat.seatNumber()));
+        assertTrue(inventory.claim(SCHEDULE, seat.ticketClass(), seat.seatNumber()));
+        assertEquals(Map.of("First", 2, "Second", 2), inventory.freeSeats(SCHEDULE));
+        // Once committed the seat is no longer this thread's to write again.
+        assertFalse(inventory.claim(SCHEDULE, seat.ticketClass(), seat.seatNumber()));
+    }
+    @Test
+    void seatReservedByAnotherRequestCannotBeWritten() throws InterruptedException {
+        Thread other = new Thread(() -> inventory.reserve(SCHEDULE, "First", "1"));
+        other.start();
+        other.join();
+        assertThrows(RuntimeException.class, () -> inventory.hold(SCHEDULE, "First", "1"));
+        assertFalse(inventory.claim(SCHEDULE, "First", "1"));
+        assertThrows(RuntimeException.class, () -> inventory.hold(SCHEDULE, "First", "A1"));
+    }
+    @Test
+    void seatHeldForAnUnreservedBookingIsTakenUntilReleased() {
+        assertEquals(new SeatInventoryService.Seat("First", "1"), inventory.hold(SCHEDULE, null, "1"));
+        assertTrue(inventory.isTaken(SCHEDULE, "First", "1"));
+        assertFalse(inventory.isTaken(SCHEDULE, "Second", "1"));
+        inventory.release(SCHEDULE, "First", "1");
+        assertFalse(inventory.isTaken(SCHEDULE, "First", "1"));
+    }
+}
@@ -0,0 +1,44 @@
+package com.raillink.service;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+class SseHubTest {
+    private SseHub hub;
+    @BeforeEach
+    void setUp() {
+        hub = new SseHub();
+        ReflectionTestUtils.setField(hub, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(hub, "meterRegistry", new SimpleMeterRegistry());
+        hub.registerMetrics();
+    }
+    @AfterEach
+    void tearDown() {
+        hub.shutdown();
+    }
+    @Test
+    void userEventsReachOnlyThatUser() throws InterruptedException {
+        hub.subscribe(Set.of(SseHub.BOOKINGS_TOPIC), "alice");
+        hub.subscribe(Set.of(SseHub.BOOKINGS_TOPIC), "bob");
+        hub.subscribe(null, null);
+        hub.publishTo("alice", SseHub.BOOKINGS_TOPIC, "booking-cancelled", "booking:1", Map.of("bookingId", 1));
+        awaitDelivered(1);
+        hub.publish(SseHub.BOOKINGS_TOPIC, "notice", null, Map.of("text", "everyone"));
+        awaitDelivered(4);
+        Thread.sleep(100);
+        assertEquals(4, hub.stats().delivered());
+    }
+    private void awaitDelivered(long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (hub.stats().delivered() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(hub.stats().delivered() >= expected);
+    }
+}
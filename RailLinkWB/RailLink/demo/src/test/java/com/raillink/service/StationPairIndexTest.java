@@ -0,0 +1,58 @@
+package com.raillink.service;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import com.raillink.dto.ScheduleTime;
+import com.raillink.repository.ScheduleQueryRepository;
+class StationPairIndexTest {
+    private static final long ROUTE = 10L;
+    private static final LocalDateTime DAY = LocalDateTime.of(2026, 3, 2, 0, 0);
+    private RouteStopService routeStopService;
+    private ScheduleQueryRepository scheduleQueryRepository;
+    private StationPairIndex index;
+    @BeforeEach
+    void setUp() {
+        routeStopService = mock(RouteStopService.class);
+        scheduleQueryRepository = mock(ScheduleQueryRepository.class);
+        when(routeStopService.allStops()).thenReturn(Map.of(ROUTE, new long[] {1, 2, 3}));
+        when(scheduleQueryRepository.findRunningTimes(any())).thenReturn(List.of(
+                new ScheduleTime(100L, ROUTE, DAY.plusHours(8), DAY.plusHours(10)),
+                new ScheduleTime(101L, ROUTE, DAY.minusHours(1), DAY.plusHours(3))));
+        index = new StationPairIndex();
+        ReflectionTestUtils.setField(index, "routeStopService", routeStopService);
+        ReflectionTestUtils.setField(index, "scheduleQueryRepository", scheduleQueryRepository);
+    }
+    @Test
+    void departuresUseTheInterpolatedStopTime() {
+        List<StationPairIndex.StopDeparture> departures = index.departuresFrom(2, DAY.plusHours(8).plusMinutes(30), DAY.plusHours(9).plusMinutes(30));
+        assertEquals(List.of(new StationPairIndex.StopDeparture(100L, DAY.plusHours(9))), departures);
+    }
+    @Test
+    void scheduleThatLeftTheDayBeforeIsFound() {
+        List<StationPairIndex.StopDeparture> departures = index.departuresFrom(2, DAY, DAY.plusHours(2));
+        assertEquals(List.of(new StationPairIndex.StopDeparture(101L, DAY.plusHours(1))), departures);
+    }
+    @Test
+    void lastStopHasNoDepartures() {
+        assertTrue(index.departuresFrom(3, DAY, DAY.plusDays(1)).isEmpty());
+    }
+    @Test
+    void refreshedRouteIsDepartedFromItsNewStops() {
+        index.version();
+        when(routeStopService.stopsOf(ROUTE)).thenReturn(new long[] {4, 2});
+        when(scheduleQueryRepository.findRunningTimesByRoute(eq(ROUTE), any())).thenReturn(List.of(
+                new ScheduleTime(100L, ROUTE, DAY.plusHours(8), DAY.plusHours(10))));
+        index.refreshRoute(ROUTE);
+        assertTrue(index.departuresFrom(1, DAY, DAY.plusDays(1)).isEmpty());
+        assertEquals(List.of(new StationPairIndex.StopDeparture(100L, DAY.plusHours(8))), index.departuresFrom(4, DAY, DAY.plusDays(1)));
+    }
+}